@@ -0,0 +1,76 @@
+package com.bigboi.geojson.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.metrics.LocationMetrics;
+import com.bigboi.geojson.services.LocationCache;
+import com.bigboi.geojson.services.LocationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A synthetic dataset written to a temporary directory and loaded into a
+ * {@link LocationService} built by hand, without a Spring context. Sizes are
+ * JMH parameters, e.g. {@code -p verticesPerEdge=2000}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDataset {
+    @Param("40")
+    public int countries;
+
+    @Param("8")
+    public int regionsPerSide;
+
+    @Param({ "50", "500" })
+    public int verticesPerEdge;
+
+    @Param({ "INDEX", "GRID" })
+    public LocationProperties.LookupMode lookupMode;
+
+    public SyntheticDataset dataset;
+    public Path directory;
+    public LocationService locationService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataset = new SyntheticDataset(countries, regionsPerSide, verticesPerEdge);
+        directory = Files.createTempDirectory("geojson-bench");
+        dataset.write(directory);
+        locationService = newService(directory, lookupMode);
+        locationService.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        locationService.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /** A service reading {@code directory}, with snapshots and the result cache off so every run parses and tests. */
+    public static LocationService newService(Path directory, LocationProperties.LookupMode lookupMode) {
+        LocationProperties properties = new LocationProperties();
+        properties.setDataPattern("file:" + directory.toAbsolutePath() + "/*.json");
+        properties.setLookupMode(lookupMode);
+        properties.setPrepareEagerly(true);
+        properties.getSnapshot().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new LocationService(new GeometryFactory(), properties, new LocationCache(properties, registry),
+                new LocationMetrics(registry));
+    }
+}
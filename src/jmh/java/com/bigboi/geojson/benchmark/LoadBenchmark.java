@@ -0,0 +1,91 @@
+package com.bigboi.geojson.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigboi.geojson.geometry.HeapCoordinateStore;
+import com.bigboi.geojson.io.GeoJsonFeatureReader;
+import com.bigboi.geojson.services.LocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Load throughput. {@code parseFile} streams one country file held in memory
+ * through the feature reader, the core of {@code loadGeojson}; {@code loadAll}
+ * is a cold start of the whole pipeline over every file on disk, index
+ * build included. The {@code bytes} counter counts bytes read and is
+ * reported per second; divide by 1,048,576 for MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoadBenchmark {
+    private byte[] file;
+    private long datasetBytes;
+    private GeoJsonFeatureReader reader;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(BenchmarkDataset data) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(data.directory)) {
+            files = paths.sorted().toList();
+        }
+        file = Files.readAllBytes(files.get(0));
+        for (Path path : files) {
+            datasetBytes += Files.size(path);
+        }
+        reader = new GeoJsonFeatureReader(new ObjectMapper(), new GeometryFactory(), new HeapCoordinateStore());
+    }
+
+    @Benchmark
+    public int parseFile(Bytes counter) throws IOException {
+        counter.bytes += file.length;
+        return reader.read(new ByteArrayInputStream(file), (feature, properties, geometry) -> {
+        });
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public LocationService loadAll(BenchmarkDataset data, Bytes counter) throws IOException {
+        counter.bytes += datasetBytes;
+        // A new service, since reloading the same one would reuse every unchanged country
+        LocationService service = BenchmarkDataset.newService(data.directory, data.lookupMode);
+        service.init();
+        service.shutdown();
+        return service;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bigboi.geojson.benchmark;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code LocationService.findLocation} for three kinds of point: uniform over
+ * the globe, close to region borders, and open ocean.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+    private static final int POINTS = 1 << 14;
+
+    private double[][] random;
+    private double[][] border;
+    private double[][] ocean;
+    private int next;
+
+    @Setup
+    public void setUp(BenchmarkDataset data) {
+        random = SyntheticDataset.randomPoints(POINTS, 1);
+        border = data.dataset.borderPoints(POINTS, 2);
+        ocean = SyntheticDataset.oceanPoints(POINTS, 3);
+    }
+
+    private double[] nextPoint(double[][] points) {
+        next = (next + 1) & (POINTS - 1);
+        return points[next];
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> randomPoint(BenchmarkDataset data) {
+        double[] point = nextPoint(random);
+        return data.locationService.findLocation(point[0], point[1]);
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> borderPoint(BenchmarkDataset data) {
+        double[] point = nextPoint(border);
+        return data.locationService.findLocation(point[0], point[1]);
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> oceanMiss(BenchmarkDataset data) {
+        double[] point = nextPoint(ocean);
+        return data.locationService.findLocation(point[0], point[1]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Map<String, Integer>> availableCountries(BenchmarkDataset data) {
+        return data.locationService.getAvailableCountries();
+    }
+}
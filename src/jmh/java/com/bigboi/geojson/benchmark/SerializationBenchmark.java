@@ -0,0 +1,75 @@
+package com.bigboi.geojson.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * What {@code /api/location/find} does per request after parsing its body:
+ * the lookup and the JSON encoding of its result, and the encoding alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private static final int POINTS = 1 << 12;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private double[][] points;
+    private List<Map<String, Object>> results;
+    private int next;
+
+    @Setup
+    public void setUp(BenchmarkDataset data) {
+        // Points near borders, kept only where the lookup finds a region, so every call has a result
+        points = data.dataset.borderPoints(POINTS, 4);
+        results = new ArrayList<>();
+        List<double[]> hits = new ArrayList<>();
+        for (double[] point : points) {
+            data.locationService.findLocation(point[0], point[1]).ifPresent(result -> {
+                results.add(result);
+                hits.add(point);
+            });
+        }
+        points = hits.toArray(new double[0][]);
+    }
+
+    @Benchmark
+    public byte[] lookupAndEncode(BenchmarkDataset data) throws JsonProcessingException {
+        next = (next + 1) % points.length;
+        double[] point = points[next];
+        return objectMapper.writeValueAsBytes(data.locationService.findLocation(point[0], point[1]).orElseThrow());
+    }
+
+    /** What the endpoint does now: the lookup, then the bytes encoded when the region was first found. */
+    @Benchmark
+    public byte[] lookupPrecomputed(BenchmarkDataset data) {
+        next = (next + 1) % points.length;
+        double[] point = points[next];
+        return data.locationService.locate(point[0], point[1]).getResult().getJson();
+    }
+
+    @Benchmark
+    public byte[] encode() throws JsonProcessingException {
+        next = (next + 1) % results.size();
+        return objectMapper.writeValueAsBytes(results.get(next));
+    }
+}
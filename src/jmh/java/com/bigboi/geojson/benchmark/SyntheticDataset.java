@@ -0,0 +1,192 @@
+package com.bigboi.geojson.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes GADM-shaped FeatureCollections so benchmarks run offline. Each
+ * country is a square of {@code regionsPerSide} x {@code regionsPerSide} regions tiling it exactly;
+ * every region edge is a sine wiggle of {@code verticesPerEdge} points that
+ * the neighbour on the other side shares, so boundaries are as dense as
+ * configured. Countries sit between 60S and 60N; everything north of 70N
+ * is ocean.
+ */
+public class SyntheticDataset {
+    public static final double COUNTRY_SIZE = 10;
+    private static final double COUNTRY_SPACING = 15;
+    private static final int COUNTRIES_PER_ROW = 24;
+    private static final double MIN_LAT = -60;
+
+    private final int countries;
+    private final int regionsPerSide;
+    private final int verticesPerEdge;
+
+    public SyntheticDataset(int countries, int regionsPerSide, int verticesPerEdge) {
+        if (countries > COUNTRIES_PER_ROW * 8) {
+            throw new IllegalArgumentException("At most " + COUNTRIES_PER_ROW * 8 + " countries fit below 60N");
+        }
+        this.countries = countries;
+        this.regionsPerSide = regionsPerSide;
+        this.verticesPerEdge = Math.max(verticesPerEdge, 2);
+    }
+
+    public static String countryCode(int country) {
+        return "S" + (char) ('A' + country / 26 % 26) + (char) ('A' + country % 26);
+    }
+
+    public static String fileName(int country) {
+        return "gadm41_" + countryCode(country) + "_1.json";
+    }
+
+    /** Writes one file per country into {@code directory} and returns their paths. */
+    public List<Path> write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        JsonFactory factory = new JsonFactory();
+        List<Path> files = new ArrayList<>(countries);
+        for (int c = 0; c < countries; c++) {
+            Path file = directory.resolve(fileName(c));
+            try (OutputStream out = Files.newOutputStream(file);
+                    JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8)) {
+                writeCountry(json, c);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private void writeCountry(JsonGenerator json, int country) throws IOException {
+        double originX = originX(country);
+        double originY = originY(country);
+        double cell = COUNTRY_SIZE / regionsPerSide;
+
+        json.writeStartObject();
+        json.writeStringField("type", "FeatureCollection");
+        json.writeArrayFieldStart("features");
+        for (int row = 0; row < regionsPerSide; row++) {
+            for (int column = 0; column < regionsPerSide; column++) {
+                json.writeStartObject();
+                json.writeStringField("type", "Feature");
+                json.writeObjectFieldStart("properties");
+                json.writeStringField("GID_0", countryCode(country));
+                json.writeStringField("COUNTRY", "Synthetic " + countryCode(country));
+                json.writeStringField("GID_1", countryCode(country) + "." + (row * regionsPerSide + column + 1));
+                json.writeStringField("NAME_1", "Region " + row + "-" + column);
+                json.writeStringField("TYPE_1", "Province");
+                json.writeStringField("HASC_1", "NA");
+                json.writeEndObject();
+
+                json.writeObjectFieldStart("geometry");
+                json.writeStringField("type", "MultiPolygon");
+                json.writeArrayFieldStart("coordinates");
+                json.writeStartArray();
+                json.writeStartArray();
+                double x0 = originX + column * cell;
+                double y0 = originY + row * cell;
+                writeRing(json, x0, y0, x0 + cell, y0 + cell, cell);
+                json.writeEndArray();
+                json.writeEndArray();
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /** Counter-clockwise ring: bottom, right, top reversed, left reversed. */
+    private void writeRing(JsonGenerator json, double x0, double y0, double x1, double y1, double cell)
+            throws IOException {
+        List<double[]> ring = new ArrayList<>();
+        ring.addAll(edge(x0, x1, y0, false, cell));
+        ring.addAll(edge(y0, y1, x1, true, cell).subList(1, verticesPerEdge));
+        List<double[]> top = edge(x0, x1, y1, false, cell);
+        for (int i = verticesPerEdge - 2; i >= 0; i--) {
+            ring.add(top.get(i));
+        }
+        List<double[]> left = edge(y0, y1, x0, true, cell);
+        for (int i = verticesPerEdge - 2; i >= 0; i--) {
+            ring.add(left.get(i));
+        }
+        for (double[] point : ring) {
+            json.writeStartArray();
+            json.writeNumber(point[0]);
+            json.writeNumber(point[1]);
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Points of the edge from {@code from} to {@code to} along one axis at
+     * {@code fixed} on the other, always in ascending order so both regions
+     * sharing it produce identical points. The end points are the corners.
+     */
+    private List<double[]> edge(double from, double to, double fixed, boolean vertical, double cell) {
+        List<double[]> points = new ArrayList<>(verticesPerEdge);
+        double amplitude = cell * 0.1;
+        int waves = Math.max(1, verticesPerEdge / 8);
+        for (int i = 0; i < verticesPerEdge; i++) {
+            double t = (double) i / (verticesPerEdge - 1);
+            double along = from + (to - from) * t;
+            double offset = amplitude * Math.sin(Math.PI * waves * t);
+            points.add(vertical ? new double[] { fixed + offset, along } : new double[] { along, fixed + offset });
+        }
+        return points;
+    }
+
+    private static double originX(int country) {
+        return -180 + (country % COUNTRIES_PER_ROW) * COUNTRY_SPACING;
+    }
+
+    private static double originY(int country) {
+        return MIN_LAT + (country / COUNTRIES_PER_ROW) * COUNTRY_SPACING;
+    }
+
+    /** Uniform over the globe: a mix of hits and misses. */
+    public static double[][] randomPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            points[i] = new double[] { random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180 };
+        }
+        return points;
+    }
+
+    /** Points within a small fraction of a cell from region edges: the expensive lookups. */
+    public double[][] borderPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double cell = COUNTRY_SIZE / regionsPerSide;
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            int country = random.nextInt(countries);
+            int line = 1 + random.nextInt(Math.max(regionsPerSide - 1, 1));
+            double along = random.nextDouble() * COUNTRY_SIZE;
+            double across = line * cell + (random.nextDouble() - 0.5) * cell * 0.25;
+            across = Math.min(across, COUNTRY_SIZE - 1e-6);
+            boolean vertical = random.nextBoolean();
+            double x = originX(country) + (vertical ? across : along);
+            double y = originY(country) + (vertical ? along : across);
+            points[i] = new double[] { y, x };
+        }
+        return points;
+    }
+
+    /** Points north of every country, which no lookup can resolve. */
+    public static double[][] oceanPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            points[i] = new double[] { 70 + random.nextDouble() * 15, random.nextDouble() * 360 - 180 };
+        }
+        return points;
+    }
+}
@@ -0,0 +1,276 @@
+package com.bigboi.geojson.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.location")
+public class LocationProperties {
+    /**
+     * Country files to load, one GADM file per country. Empty means the JSON
+     * files in {@code files.dir}, where downloads land, so that directory is
+     * the one setting to change. A pattern elsewhere, e.g.
+     * {@code classpath:data/*.json}, is never updated by downloads.
+     */
+    private String dataPattern = "";
+
+    /** Reload changed countries when files in the data directory change. */
+    private boolean watch = false;
+
+    /**
+     * Build the point-in-polygon index of every region while loading instead of
+     * on the first lookup that reaches it.
+     */
+    private boolean prepareEagerly = false;
+
+    /** Threads parsing country files in parallel at startup, 0 means one per core. */
+    private int loadThreads = 0;
+
+    /**
+     * Where ring ordinates are kept. OFF_HEAP moves them into direct memory, so
+     * -XX:MaxDirectMemorySize has to leave room for the whole dataset.
+     */
+    private CoordinateStorage coordinateStorage = CoordinateStorage.HEAP;
+
+    /** Grid size in degrees of the coarse country footprints used to pick candidate countries. */
+    private double countryCellSize = 1.0;
+
+    /**
+     * INDEX tests the regions picked by the envelope index; GRID first looks the
+     * point up in a precomputed per-country cell grid and only tests regions
+     * for cells on a boundary.
+     */
+    private LookupMode lookupMode = LookupMode.INDEX;
+
+    private Grid grid = new Grid();
+
+    private Batch batch = new Batch();
+
+    private Snapshot snapshot = new Snapshot();
+
+    private Cache cache = new Cache();
+
+    private Download download = new Download();
+
+    private Files files = new Files();
+
+    private Simplify simplify = new Simplify();
+
+    private Nearest nearest = new Nearest();
+
+    private Execution execution = new Execution();
+
+    private Levels levels = new Levels();
+
+    private Bulk bulk = new Bulk();
+
+    private Query query = new Query();
+
+    private Tiles tiles = new Tiles();
+
+    private Jobs jobs = new Jobs();
+
+    public String getDataPattern() {
+        return dataPattern == null || dataPattern.isBlank() ? "file:" + files.getDir() + "/*.json" : dataPattern;
+    }
+
+    public enum CoordinateStorage {
+        HEAP, OFF_HEAP
+    }
+
+    public enum LookupMode {
+        INDEX, GRID
+    }
+
+    @Data
+    public static class Batch {
+        /** Largest JSON array accepted by the batch endpoint. */
+        private int maxSize = 100_000;
+        /** Coordinates resolved together; bounds the results held in memory at once. */
+        private int chunkSize = 4096;
+        /** Lookup threads shared by all batch requests, 0 means one per core. */
+        private int threads = 0;
+    }
+
+    @Data
+    public static class Grid {
+        private int maxDepth = 14;
+        /** Heap shared by the grids of all countries, split by region count. */
+        private long memoryBudgetMb = 64;
+    }
+
+    @Data
+    public static class Snapshot {
+        /** Write binary snapshots of parsed files and load from them on later starts. */
+        private boolean enabled = true;
+        private String dir = System.getProperty("java.io.tmpdir") + "/geojson-snapshots";
+    }
+
+    @Data
+    public static class Download {
+        /** Directory listing of the GADM mirror, ending in a slash. */
+        private String baseUrl = "https://geodata.ucdavis.edu/gadm/gadm4.1/json/";
+        /** Transfers running at the same time. */
+        private int concurrency = 8;
+        private int connectTimeoutSeconds = 10;
+        /** Time allowed for a server to start answering one file request. */
+        private int requestTimeoutSeconds = 60;
+        /** Fetch every admin level of a country, not only the finest. */
+        private boolean allLevels = false;
+    }
+
+    @Data
+    public static class Files {
+        /**
+         * Directory of the country files: downloads are written here, the
+         * location index loads from here unless {@code data-pattern} says
+         * otherwise, and the raw files are served from here by /api.
+         */
+        private String dir = "src/main/resources/data";
+        /** Gzip every file in the background after indexing, for clients accepting gzip. */
+        private boolean precompress = true;
+        /**
+         * Where precompressed variants are kept, named after their file plus
+         * .gz or .br; outside the data directory so they are never packaged.
+         */
+        private String variantDir = System.getProperty("java.io.tmpdir") + "/geojson-variants";
+    }
+
+    @Data
+    public static class Simplify {
+        /**
+         * Douglas-Peucker tolerance in degrees applied while keeping topology, 0
+         * keeps full resolution. 0.0005 is roughly 55 m at the equator.
+         */
+        private double tolerance = 0;
+        /**
+         * Test points within the tolerance of a simplified boundary against the
+         * full geometry, read back from the snapshot. Needs snapshots enabled.
+         */
+        private boolean twoTier = true;
+    }
+
+    @Data
+    public static class Cache {
+        /** Cache lookups per grid cell for cells that lie entirely inside one region. */
+        private boolean enabled = false;
+        /** Bits per axis of the cell grid: 18 gives cells of about 150 x 75 m at the equator. */
+        private int precision = 18;
+        private long maxSize = 100_000;
+    }
+
+    @Data
+    public static class Nearest {
+        /** Answer points outside every region with the closest region within the maximum distance. */
+        private boolean enabled = false;
+        private double maxDistanceMeters = 5_000;
+    }
+
+    @Data
+    public static class Execution {
+        /**
+         * Run single lookups on a bounded pool of their own rather than on the
+         * request thread, refusing them with 503 when it is backed up. Pairs
+         * with spring.threads.virtual.enabled, which needs Java 21.
+         */
+        private boolean lookupPool = false;
+        /** Lookup threads, 0 means one per core. */
+        private int lookupThreads = 0;
+        /** Lookups allowed to wait for a thread before new ones are refused. */
+        private int lookupQueue = 256;
+        /** Seconds a refused client is asked to wait before retrying. */
+        private int retryAfterSeconds = 1;
+    }
+
+    @Data
+    public static class Levels {
+        /**
+         * Admin levels with an index of their own, for lookups asking for a
+         * coarser level than the finest loaded. Other levels are answered from
+         * the finest region with its properties cut down to the level.
+         */
+        private List<Integer> indexed = new ArrayList<>();
+        /**
+         * Build the regions of an indexed level by merging finer regions when
+         * the country has no file for that level.
+         */
+        private boolean dissolve = false;
+    }
+
+    @Data
+    public static class Bulk {
+        /**
+         * Delimited text file to tag with regions at startup, .gz allowed.
+         * Empty leaves bulk mode off.
+         */
+        private String input = "";
+        /** Where the tagged rows go; empty writes next to the input with .regions before the extension. */
+        private String output = "";
+        private String delimiter = ",";
+        /** Whether the first row names the columns. Without one, the columns below are 0-based indexes. */
+        private boolean header = true;
+        private String latColumn = "lat";
+        private String lonColumn = "lon";
+        /**
+         * Columns appended to every row: property keys such as country or
+         * level_1, or countryCode for the ISO code.
+         */
+        private List<String> columns = new ArrayList<>(List.of("countryCode", "country", "level_1", "level_2"));
+        /** Admin level to resolve rows to, -1 for the finest loaded. */
+        private int level = -1;
+        /** Rows read, looked up and written together; about three chunks are in memory at once. */
+        private int chunkSize = 65_536;
+        /** Shut down once the file is done instead of going on to serve requests. */
+        private boolean exitWhenDone = true;
+    }
+
+    @Data
+    public static class Query {
+        /** Regions per page of a region query that does not ask for a limit. */
+        private int defaultLimit = 100;
+        /** Largest page a region query may ask for. */
+        private int maxLimit = 1_000;
+    }
+
+    @Data
+    public static class Tiles {
+        /** Deepest zoom served, at most 24. */
+        private int maxZoom = 14;
+        /** Size of a tile in tile coordinates. */
+        private int extent = 4096;
+        /** Pixels drawn beyond each tile edge, so outlines join up across tiles. */
+        private int buffer = 64;
+        /** Douglas-Peucker tolerance in tile pixels, applied after clipping. */
+        private double simplifyPixels = 1.0;
+        /**
+         * Admin level drawn at each zoom, starting at zoom 0. Deeper zooms, and
+         * levels without an index of their own, draw the finest regions.
+         */
+        private List<Integer> levelByZoom = new ArrayList<>();
+        /** Memory for tiles, most recently used kept. */
+        private long cacheMaxMb = 64;
+        /**
+         * Where tiles pushed out of memory are written, in an mvt directory of
+         * their own; empty discards them instead.
+         */
+        private String spillDir = System.getProperty("java.io.tmpdir") + "/geojson-tiles";
+        private long spillMaxMb = 1_024;
+        /** Generate every tile with regions up to this zoom after each load, -1 for none. */
+        private int preseedMaxZoom = -1;
+    }
+
+    @Data
+    public static class Jobs {
+        /**
+         * How long a reload or fetch job waits for the dataset rebuild before
+         * it is marked failed, freeing the job thread for the next one.
+         */
+        private int rebuildTimeoutMinutes = 30;
+    }
+}
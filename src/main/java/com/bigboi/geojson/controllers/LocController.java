@@ -1,41 +1,136 @@
 package com.bigboi.geojson.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.bigboi.geojson.config.LocationProperties;
 import com.bigboi.geojson.models.Coordinate;
-import com.bigboi.geojson.services.GeoDataDownloadService;
+import com.bigboi.geojson.models.GeoJsonFile;
+import com.bigboi.geojson.models.LookupStats;
+import com.bigboi.geojson.models.MaintenanceJob;
+import com.bigboi.geojson.models.RegionQuery;
+import com.bigboi.geojson.services.BatchLocationService;
 import com.bigboi.geojson.services.GeoJsonService;
 import com.bigboi.geojson.services.LocationService;
+import com.bigboi.geojson.services.MaintenanceJobService;
+import com.bigboi.geojson.services.RegionQueryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 @RestController
 @RequestMapping("/api")
 public class LocController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final LocationService locationService;
-    private final GeoDataDownloadService geoDataDownloadService;
+    private final BatchLocationService batchLocationService;
+    private final MaintenanceJobService maintenanceJobService;
     private final GeoJsonService geoJsonService;
+    private final RegionQueryService regionQueryService;
+    private final LocationProperties locationProperties;
 
-    public LocController(LocationService locationService, GeoDataDownloadService geoDataDownloadService,
-            GeoJsonService geoJsonService) {
+    public LocController(LocationService locationService, BatchLocationService batchLocationService,
+            MaintenanceJobService maintenanceJobService,
+            GeoJsonService geoJsonService, RegionQueryService regionQueryService,
+            LocationProperties locationProperties) {
         this.locationService = locationService;
-        this.geoDataDownloadService = geoDataDownloadService;
+        this.batchLocationService = batchLocationService;
+        this.maintenanceJobService = maintenanceJobService;
         this.geoJsonService = geoJsonService;
+        this.regionQueryService = regionQueryService;
+        this.locationProperties = locationProperties;
+    }
+
+    /** -1, meaning the finest level loaded, when the request does not name one. */
+    static int adminLevel(Integer level) {
+        if (level == null) {
+            return -1;
+        }
+        if (level < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Admin level must be 0 or more.");
+        }
+        return level;
+    }
+
+    @PostMapping(value = "/location/find/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findLocations(InputStream body,
+            @RequestParam(required = false) Integer level) throws IOException {
+        int adminLevel = adminLevel(level);
+        int maxSize = locationProperties.getBatch().getMaxSize();
+        // Parsed here rather than bound, so reading stops at the limit
+        List<Coordinate> coordinates;
+        try {
+            coordinates = batchLocationService.readJson(body, maxSize);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+        }
+        if (coordinates.size() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch exceeds the limit of " + maxSize + " coordinates; send larger inputs as " + NDJSON + ".");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> batchLocationService.writeJson(coordinates, adminLevel, out));
+    }
+
+    @PostMapping(value = "/location/find/batch", consumes = NDJSON)
+    public ResponseEntity<StreamingResponseBody> findLocationsStream(InputStream body,
+            @RequestParam(required = false) Integer level) {
+        int adminLevel = adminLevel(level);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> batchLocationService.writeNdjson(body, adminLevel, out));
+    }
+
+    /**
+     * Regions meeting a bounding box or polygon, a page at a time, as a GeoJSON
+     * FeatureCollection or, when NDJSON is accepted, one Feature per line.
+     */
+    @PostMapping(value = "/regions/query", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> queryRegions(@RequestBody RegionQuery query,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        RegionQueryService.Plan plan;
+        try {
+            plan = regionQueryService.plan(query);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        if (accept != null && accept.contains(NDJSON)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(NDJSON))
+                    .body(plan::writeNdjson);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(plan::writeFeatureCollection);
     }
 
-    @PostMapping("/location/find")
-    public Map<String, Object> findLocation(@RequestBody Coordinate coordinate) {
-        return locationService.findLocation(coordinate.getLatitude(), coordinate.getLongitude())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Location not found in any loaded country."));
+    @GetMapping("/location/stats")
+    public LookupStats getLookupStats() {
+        return locationService.getLookupStats();
     }
 
     @GetMapping("/countries")
@@ -43,40 +138,72 @@ public class LocController {
         return locationService.getAvailableCountries();
     }
 
+    /** Starts downloading the GADM files; poll the returned job for the outcome. */
     @PostMapping("/fetch")
-    public ResponseEntity<String> fetchData() {
-        try {
-            geoDataDownloadService.fetchData();
-            return ResponseEntity.ok("Data fetched successfully");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body("Error fetching data: " + e.getMessage());
-        }
+    public ResponseEntity<MaintenanceJob> fetchData() {
+        return accepted(maintenanceJobService.submit(MaintenanceJob.Type.FETCH));
+    }
+
+    /** Starts building the low-zoom tiles ahead of requests; poll the returned job for the outcome. */
+    @PostMapping("/tiles/preseed")
+    public ResponseEntity<MaintenanceJob> preseedTiles() {
+        return accepted(maintenanceJobService.submit(MaintenanceJob.Type.PRESEED));
+    }
+
+    @GetMapping("/jobs")
+    public List<MaintenanceJob> getJobs() {
+        return maintenanceJobService.getJobs();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<MaintenanceJob> getJob(@PathVariable String id) {
+        return ResponseEntity.of(maintenanceJobService.getJob(id));
+    }
+
+    private static ResponseEntity<MaintenanceJob> accepted(MaintenanceJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
     }
 
+    /** Index of the raw files; fetch each through {@code /api/{fileName}}. */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllGeoJsonData() {
-        return ResponseEntity.ok(geoJsonService.getAllGeoJsonData());
+    public ResponseEntity<Collection<GeoJsonFile>> getAllGeoJsonData() {
+        return ResponseEntity.ok(geoJsonService.getAllGeoJsonFiles());
     }
 
+    /**
+     * Streams a raw file from disk, precompressed when the client accepts it.
+     * Range requests are answered by Spring from the returned resource.
+     */
     @GetMapping("/{fileName}")
-    public ResponseEntity<Object> getGeoJsonData(@PathVariable String fileName) {
-        Object data = geoJsonService.getGeoJsonData(fileName);
-        if (data == null) {
+    public ResponseEntity<Resource> getGeoJsonData(@PathVariable String fileName,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        GeoJsonFile file = geoJsonService.getGeoJsonFile(fileName).orElse(null);
+        if (file == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(data);
+        GeoJsonService.Representation representation = geoJsonService.select(file, acceptEncoding);
+        if (request.checkNotModified(representation.etag(), representation.lastModified())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(representation.etag())
+                .lastModified(representation.lastModified())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (representation.contentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, representation.contentEncoding());
+        }
+        return response.body(new FileSystemResource(representation.path()));
     }
 
+    /** Starts re-reading the data directory; poll the returned job for the outcome. */
     @PostMapping("/reload")
-    public ResponseEntity<String> reloadGeoJsonData() {
-        try {
-            geoJsonService.reloadGeoJsonData();
-            return ResponseEntity.ok("GeoJSON data reloaded successfully");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body("Error reloading GeoJSON data: " + e.getMessage());
-        }
+    public ResponseEntity<MaintenanceJob> reloadGeoJsonData() {
+        return accepted(maintenanceJobService.submit(MaintenanceJob.Type.RELOAD));
     }
 
 }
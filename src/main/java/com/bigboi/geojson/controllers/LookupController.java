@@ -0,0 +1,54 @@
+package com.bigboi.geojson.controllers;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bigboi.geojson.models.Coordinate;
+import com.bigboi.geojson.models.RegionResult;
+import com.bigboi.geojson.services.LocationService;
+
+/**
+ * Single lookups answered on the request thread, with no async dispatch.
+ * {@link PooledLookupController} takes the endpoint over when the lookup
+ * pool is enabled.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "app.location.execution.lookup-pool", havingValue = "false", matchIfMissing = true)
+public class LookupController {
+    private final LocationService locationService;
+
+    public LookupController(LocationService locationService) {
+        this.locationService = locationService;
+    }
+
+    /**
+     * The region of a point. With {@code original=true} the complete
+     * properties of its source feature are added, read back from disk.
+     */
+    @PostMapping(value = "/location/find", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] findLocation(@RequestBody Coordinate coordinate, @RequestParam(required = false) Integer level,
+            @RequestParam(defaultValue = "false") boolean original) {
+        return regionJson(locationService, coordinate, LocController.adminLevel(level), original);
+    }
+
+    static byte[] regionJson(LocationService locationService, Coordinate coordinate, int adminLevel,
+            boolean original) {
+        RegionResult result = original
+                ? locationService.findWithOriginalProperties(coordinate.getLatitude(), coordinate.getLongitude(),
+                        adminLevel)
+                : locationService.find(coordinate.getLatitude(), coordinate.getLongitude(), adminLevel);
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Location not found in any loaded country.");
+        }
+        // Encoded once per region; written out as is
+        return result.getJson();
+    }
+}
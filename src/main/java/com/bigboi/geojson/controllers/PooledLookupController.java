@@ -0,0 +1,53 @@
+package com.bigboi.geojson.controllers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bigboi.geojson.models.Coordinate;
+import com.bigboi.geojson.services.LocationService;
+import com.bigboi.geojson.services.LookupExecutor;
+
+/**
+ * Single lookups run on the lookup pool, releasing the request thread while
+ * they wait; replaces {@link LookupController} when the pool is enabled.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "app.location.execution.lookup-pool", havingValue = "true")
+public class PooledLookupController {
+    private final LocationService locationService;
+    private final LookupExecutor lookupExecutor;
+
+    public PooledLookupController(LocationService locationService, LookupExecutor lookupExecutor) {
+        this.locationService = locationService;
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    @PostMapping(value = "/location/find", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<byte[]> findLocation(@RequestBody Coordinate coordinate,
+            @RequestParam(required = false) Integer level, @RequestParam(defaultValue = "false") boolean original) {
+        int adminLevel = LocController.adminLevel(level);
+        return lookupExecutor.submit(() -> LookupController.regionJson(locationService, coordinate, adminLevel,
+                original));
+    }
+
+    /** The lookup pool is backed up: shed the request rather than queue it. */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> lookupRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(lookupExecutor.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -1,10 +1,27 @@
 package com.bigboi.geojson.events;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.context.ApplicationEvent;
 
+/**
+ * The data files changed. The listener rebuilding the dataset hands back its
+ * future through {@link #setRebuild}, so whoever published the event can wait
+ * for that rebuild instead of starting another.
+ */
 public class GeoJsonReloadEvent extends ApplicationEvent {
-    // TODO: Make it work
+    private CompletableFuture<Boolean> rebuild = CompletableFuture.completedFuture(true);
+
     public GeoJsonReloadEvent(Object source) {
         super(source);
     }
+
+    /** Completes with whether the rebuild this event started succeeded. */
+    public CompletableFuture<Boolean> getRebuild() {
+        return rebuild;
+    }
+
+    public void setRebuild(CompletableFuture<Boolean> rebuild) {
+        this.rebuild = rebuild;
+    }
 }
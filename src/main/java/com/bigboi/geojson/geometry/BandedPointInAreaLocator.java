@@ -0,0 +1,288 @@
+package com.bigboi.geojson.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.algorithm.CGAlgorithmsDD;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.algorithm.RectangleLineIntersector;
+import org.locationtech.jts.algorithm.locate.PointOnGeometryLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Point-in-area locator that counts ray crossings only over the segments whose
+ * y-interval overlaps the point's horizontal band.
+ *
+ * <p>
+ * Unlike {@code IndexedPointInAreaLocator}, vertices are never copied into
+ * {@link Coordinate} objects: the index holds one {@code int} per segment per
+ * band it spans, and segments are read back through the rings'
+ * {@link CoordinateSequence}s, wherever those keep their ordinates.
+ */
+public class BandedPointInAreaLocator implements PointOnGeometryLocator {
+    private static final int SEGMENTS_PER_BAND = 8;
+    private static final int MAX_BANDS = 1 << 16;
+
+    private final CoordinateSequence[] rings;
+    // First global segment number of each ring
+    private final int[] ringStarts;
+    private final Envelope envelope;
+    private final double bandHeight;
+    private final int bandCount;
+    // CSR layout: segments of band b are bandSegments[bandOffsets[b] .. bandOffsets[b + 1])
+    private final int[] bandOffsets;
+    private final int[] bandSegments;
+
+    public BandedPointInAreaLocator(Geometry geometry) {
+        List<CoordinateSequence> collected = new ArrayList<>();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Polygon polygon = (Polygon) geometry.getGeometryN(i);
+            addRing(collected, polygon.getExteriorRing());
+            for (int k = 0; k < polygon.getNumInteriorRing(); k++) {
+                addRing(collected, polygon.getInteriorRingN(k));
+            }
+        }
+        this.rings = collected.toArray(new CoordinateSequence[0]);
+        this.ringStarts = new int[rings.length + 1];
+        for (int r = 0; r < rings.length; r++) {
+            ringStarts[r + 1] = ringStarts[r] + rings[r].size() - 1;
+        }
+        int segmentCount = ringStarts[rings.length];
+
+        this.envelope = geometry.getEnvelopeInternal();
+        this.bandCount = envelope.getHeight() > 0
+                ? Math.max(1, Math.min(segmentCount / SEGMENTS_PER_BAND, MAX_BANDS))
+                : 1;
+        this.bandHeight = envelope.getHeight() > 0 ? envelope.getHeight() / bandCount : 1;
+
+        // Two passes: count entries per band, then fill them in
+        this.bandOffsets = new int[bandCount + 1];
+        forEachSegmentBand((segment, band) -> bandOffsets[band + 1]++);
+        for (int b = 0; b < bandCount; b++) {
+            bandOffsets[b + 1] += bandOffsets[b];
+        }
+        this.bandSegments = new int[bandOffsets[bandCount]];
+        int[] fill = bandOffsets.clone();
+        forEachSegmentBand((segment, band) -> bandSegments[fill[band]++] = segment);
+    }
+
+    private static void addRing(List<CoordinateSequence> rings, LinearRing ring) {
+        if (ring.getNumPoints() > 1) {
+            rings.add(ring.getCoordinateSequence());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SegmentBandVisitor {
+        void visit(int segment, int band);
+    }
+
+    private void forEachSegmentBand(SegmentBandVisitor visitor) {
+        for (int r = 0; r < rings.length; r++) {
+            CoordinateSequence ring = rings[r];
+            for (int k = 0; k < ring.size() - 1; k++) {
+                double y1 = ring.getY(k);
+                double y2 = ring.getY(k + 1);
+                int from = bandOf(Math.min(y1, y2));
+                int to = bandOf(Math.max(y1, y2));
+                for (int b = from; b <= to; b++) {
+                    visitor.visit(ringStarts[r] + k, b);
+                }
+            }
+        }
+    }
+
+    private int bandOf(double y) {
+        int band = (int) ((y - envelope.getMinY()) / bandHeight);
+        return Math.max(0, Math.min(band, bandCount - 1));
+    }
+
+    @Override
+    public int locate(Coordinate p) {
+        return locate(p.x, p.y);
+    }
+
+    /**
+     * Location of the point {@code (x, y)}. Reads the segment ordinates
+     * straight from the rings, so no objects are allocated per call.
+     */
+    public int locate(double x, double y) {
+        if (envelope.isNull() || !envelope.intersects(x, y)) {
+            return Location.EXTERIOR;
+        }
+
+        // Same rules as RayCrossingCounter.countSegment, on primitive ordinates
+        int crossings = 0;
+        int band = bandOf(y);
+        int ring = 0;
+        for (int i = bandOffsets[band]; i < bandOffsets[band + 1]; i++) {
+            int segment = bandSegments[i];
+            while (segment >= ringStarts[ring + 1]) {
+                ring++;
+            }
+            while (segment < ringStarts[ring]) {
+                ring--;
+            }
+            int k = segment - ringStarts[ring];
+            CoordinateSequence sequence = rings[ring];
+            double x1 = sequence.getX(k);
+            double y1 = sequence.getY(k);
+            double x2 = sequence.getX(k + 1);
+            double y2 = sequence.getY(k + 1);
+
+            if (x1 < x && x2 < x) {
+                continue;
+            }
+            if (x == x2 && y == y2) {
+                return Location.BOUNDARY;
+            }
+            if (y1 == y && y2 == y) {
+                if (Math.min(x1, x2) <= x && x <= Math.max(x1, x2)) {
+                    return Location.BOUNDARY;
+                }
+                continue;
+            }
+            if ((y1 > y && y2 <= y) || (y2 > y && y1 <= y)) {
+                int orientation = CGAlgorithmsDD.orientationIndex(x1, y1, x2, y2, x, y);
+                if (orientation == Orientation.COLLINEAR) {
+                    return Location.BOUNDARY;
+                }
+                if (y2 < y1) {
+                    orientation = -orientation;
+                }
+                if (orientation == Orientation.LEFT) {
+                    crossings++;
+                }
+            }
+        }
+        return (crossings & 1) == 1 ? Location.INTERIOR : Location.EXTERIOR;
+    }
+
+    /**
+     * Whether the rectangle lies entirely in the interior: its centre is inside
+     * and no ring segment touches it. Conservative near the boundary.
+     */
+    public boolean containsRectangle(Envelope rectangle) {
+        if (!envelope.contains(rectangle) || locate(rectangle.centre()) != Location.INTERIOR) {
+            return false;
+        }
+
+        RectangleLineIntersector intersector = new RectangleLineIntersector(rectangle);
+        Coordinate p1 = new Coordinate();
+        Coordinate p2 = new Coordinate();
+        int fromBand = bandOf(rectangle.getMinY());
+        int toBand = bandOf(rectangle.getMaxY());
+        for (int band = fromBand; band <= toBand; band++) {
+            int ring = 0;
+            for (int i = bandOffsets[band]; i < bandOffsets[band + 1]; i++) {
+                int segment = bandSegments[i];
+                while (segment >= ringStarts[ring + 1]) {
+                    ring++;
+                }
+                int k = segment - ringStarts[ring];
+                rings[ring].getCoordinate(k, p1);
+                rings[ring].getCoordinate(k + 1, p2);
+                if (intersector.intersects(p1, p2)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Whether any ring segment passes within {@code distance} of the point. */
+    public boolean isNear(Coordinate p, double distance) {
+        return isNear(p.x, p.y, distance);
+    }
+
+    public boolean isNear(double x, double y, double distance) {
+        if (envelope.isNull()) {
+            return false;
+        }
+        double outsideX = Math.max(0, Math.max(envelope.getMinX() - x, x - envelope.getMaxX()));
+        double outsideY = Math.max(0, Math.max(envelope.getMinY() - y, y - envelope.getMaxY()));
+        double limit = distance * distance;
+        if (outsideX * outsideX + outsideY * outsideY > limit) {
+            return false;
+        }
+
+        int fromBand = bandOf(y - distance);
+        int toBand = bandOf(y + distance);
+        for (int band = fromBand; band <= toBand; band++) {
+            int ring = 0;
+            for (int i = bandOffsets[band]; i < bandOffsets[band + 1]; i++) {
+                int segment = bandSegments[i];
+                while (segment >= ringStarts[ring + 1]) {
+                    ring++;
+                }
+                int k = segment - ringStarts[ring];
+                CoordinateSequence sequence = rings[ring];
+                if (segmentDistanceSq(x, y, sequence.getX(k), sequence.getY(k), sequence.getX(k + 1),
+                        sequence.getY(k + 1)) <= limit) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Smallest distance from the point to any ring segment, with x
+     * differences multiplied by {@code xScale} (the cosine of the latitude
+     * gives equal units on both axes near the point). Only the bands within
+     * {@code maxDistance} of the point are read, so the answer is exact up to
+     * {@code maxDistance} and infinite beyond it.
+     */
+    public double distance(double x, double y, double xScale, double maxDistance) {
+        if (envelope.isNull()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double outsideX = Math.max(0, Math.max(envelope.getMinX() - x, x - envelope.getMaxX())) * xScale;
+        double outsideY = Math.max(0, Math.max(envelope.getMinY() - y, y - envelope.getMaxY()));
+        double limit = maxDistance * maxDistance;
+        if (outsideX * outsideX + outsideY * outsideY > limit) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        double px = x * xScale;
+        int fromBand = bandOf(y - maxDistance);
+        int toBand = bandOf(y + maxDistance);
+        for (int band = fromBand; band <= toBand; band++) {
+            int ring = 0;
+            for (int i = bandOffsets[band]; i < bandOffsets[band + 1]; i++) {
+                int segment = bandSegments[i];
+                while (segment >= ringStarts[ring + 1]) {
+                    ring++;
+                }
+                int k = segment - ringStarts[ring];
+                CoordinateSequence sequence = rings[ring];
+                best = Math.min(best, segmentDistanceSq(px, y, sequence.getX(k) * xScale, sequence.getY(k),
+                        sequence.getX(k + 1) * xScale, sequence.getY(k + 1)));
+            }
+        }
+        return best <= limit ? Math.sqrt(best) : Double.POSITIVE_INFINITY;
+    }
+
+    private static double segmentDistanceSq(double x, double y, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq > 0 ? ((x - x1) * dx + (y - y1) * dy) / lengthSq : 0;
+        t = Math.max(0, Math.min(t, 1));
+        double ex = x1 + t * dx - x;
+        double ey = y1 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+
+    /** Entries in the band index, a measure of its heap footprint. */
+    public int getIndexSize() {
+        return bandSegments.length;
+    }
+}
@@ -0,0 +1,23 @@
+package com.bigboi.geojson.geometry;
+
+import java.nio.DoubleBuffer;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+
+/**
+ * Decides where the x/y ordinates of loaded rings live.
+ */
+public interface CoordinateStore {
+
+    /** Creates a sequence holding the first {@code length} values of {@code xy}. */
+    CoordinateSequence create(double[] xy, int length);
+
+    /**
+     * Creates a sequence for {@code points} x/y pairs of {@code source} starting
+     * at value {@code offset}, e.g. from a mapped snapshot.
+     */
+    CoordinateSequence wrap(DoubleBuffer source, int offset, int points);
+
+    /** Bytes of ordinate storage handed out so far. */
+    long getAllocatedBytes();
+}
@@ -0,0 +1,28 @@
+package com.bigboi.geojson.geometry;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Simplifies region geometry with {@link TopologyPreservingSimplifier}, so
+ * rings neither collapse nor cross. Every simplified vertex is one of the
+ * original vertices and the result stays within the tolerance of the
+ * original, which is what lets a lookup trust the simplified shape for
+ * points further than the tolerance from its boundary.
+ */
+public class GeometrySimplifier {
+    private final GeometryFactory geometryFactory;
+    private final CoordinateStore coordinateStore;
+
+    public GeometrySimplifier(GeometryFactory geometryFactory, CoordinateStore coordinateStore) {
+        this.geometryFactory = geometryFactory;
+        this.coordinateStore = coordinateStore;
+    }
+
+    public MultiPolygon simplify(MultiPolygon geometry, double tolerance) {
+        Geometry simplified = TopologyPreservingSimplifier.simplify(geometry, tolerance);
+        return StoredGeometry.copy(simplified, geometryFactory, coordinateStore);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bigboi.geojson.geometry;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+/** Keeps ordinates in packed {@code double[]} arrays on the Java heap. */
+public class HeapCoordinateStore implements CoordinateStore {
+    private final LongAdder allocated = new LongAdder();
+
+    @Override
+    public CoordinateSequence create(double[] xy, int length) {
+        allocated.add((long) length * Double.BYTES);
+        return new PackedCoordinateSequence.Double(Arrays.copyOf(xy, length), 2, 0);
+    }
+
+    @Override
+    public CoordinateSequence wrap(DoubleBuffer source, int offset, int points) {
+        double[] xy = new double[points * 2];
+        source.get(offset, xy);
+        allocated.add((long) xy.length * Double.BYTES);
+        return new PackedCoordinateSequence.Double(xy, 2, 0);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocated.sum();
+    }
+}
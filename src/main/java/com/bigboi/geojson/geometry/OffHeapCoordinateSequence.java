@@ -0,0 +1,107 @@
+package com.bigboi.geojson.geometry;
+
+import java.nio.DoubleBuffer;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+/**
+ * Read-only two-dimensional sequence over x/y pairs held in a (usually direct
+ * or mapped) {@link DoubleBuffer}. Only absolute reads are used, so a single
+ * instance can be shared by concurrent lookups.
+ */
+public class OffHeapCoordinateSequence implements CoordinateSequence {
+    private final DoubleBuffer xy;
+    private final int size;
+
+    public OffHeapCoordinateSequence(DoubleBuffer xy) {
+        this.xy = xy;
+        this.size = xy.limit() / 2;
+    }
+
+    @Override
+    public int getDimension() {
+        return 2;
+    }
+
+    @Override
+    public Coordinate getCoordinate(int i) {
+        return new Coordinate(getX(i), getY(i));
+    }
+
+    @Override
+    public Coordinate getCoordinateCopy(int i) {
+        return getCoordinate(i);
+    }
+
+    @Override
+    public void getCoordinate(int index, Coordinate coord) {
+        coord.x = getX(index);
+        coord.y = getY(index);
+    }
+
+    @Override
+    public double getX(int index) {
+        return xy.get(2 * index);
+    }
+
+    @Override
+    public double getY(int index) {
+        return xy.get(2 * index + 1);
+    }
+
+    @Override
+    public double getOrdinate(int index, int ordinateIndex) {
+        switch (ordinateIndex) {
+            case CoordinateSequence.X:
+                return getX(index);
+            case CoordinateSequence.Y:
+                return getY(index);
+            default:
+                return Double.NaN;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void setOrdinate(int index, int ordinateIndex, double value) {
+        throw new UnsupportedOperationException("Off-heap coordinate sequences are read-only");
+    }
+
+    @Override
+    public Coordinate[] toCoordinateArray() {
+        Coordinate[] coordinates = new Coordinate[size];
+        for (int i = 0; i < size; i++) {
+            coordinates[i] = getCoordinate(i);
+        }
+        return coordinates;
+    }
+
+    @Override
+    public Envelope expandEnvelope(Envelope env) {
+        for (int i = 0; i < size; i++) {
+            env.expandToInclude(getX(i), getY(i));
+        }
+        return env;
+    }
+
+    @Override
+    @Deprecated
+    public Object clone() {
+        return copy();
+    }
+
+    /** Copies onto the heap; geometry operations that need a mutable copy get one there. */
+    @Override
+    public CoordinateSequence copy() {
+        double[] values = new double[size * 2];
+        xy.get(0, values);
+        return new PackedCoordinateSequence.Double(values, 2, 0);
+    }
+}
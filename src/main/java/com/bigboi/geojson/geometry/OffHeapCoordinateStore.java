@@ -0,0 +1,50 @@
+package com.bigboi.geojson.geometry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+
+/**
+ * Keeps ordinates outside the Java heap. Parsed rings are copied into large
+ * direct slabs, so the heap only holds one small buffer view per ring;
+ * rings read from a mapped snapshot are wrapped in place without copying.
+ * A slab is freed once no ring points into it any more.
+ */
+public class OffHeapCoordinateStore implements CoordinateStore {
+    private static final int SLAB_BYTES = 16 << 20;
+
+    private ByteBuffer slab;
+    private long allocated;
+
+    @Override
+    public CoordinateSequence create(double[] xy, int length) {
+        DoubleBuffer target = allocate(length * Double.BYTES).asDoubleBuffer();
+        target.put(0, xy, 0, length);
+        return new OffHeapCoordinateSequence(target);
+    }
+
+    @Override
+    public CoordinateSequence wrap(DoubleBuffer source, int offset, int points) {
+        return new OffHeapCoordinateSequence(source.slice(offset, points * 2));
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return allocated;
+    }
+
+    private synchronized ByteBuffer allocate(int bytes) {
+        allocated += bytes;
+        if (bytes > SLAB_BYTES / 4) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+        if (slab == null || slab.remaining() < bytes) {
+            slab = ByteBuffer.allocateDirect(SLAB_BYTES);
+        }
+        ByteBuffer part = slab.slice(slab.position(), bytes).order(ByteOrder.nativeOrder());
+        slab.position(slab.position() + bytes);
+        return part;
+    }
+}
@@ -0,0 +1,48 @@
+package com.bigboi.geojson.geometry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+
+import com.bigboi.geojson.models.AdminRegion;
+
+/**
+ * Builds the regions of a coarser admin level from a finer one, for countries
+ * whose coarser GADM file is not on disk: regions naming the same levels up
+ * to the target are merged into one, and the shared borders between them
+ * disappear.
+ */
+public class RegionDissolver {
+    private final GeometryFactory geometryFactory;
+    private final CoordinateStore coordinateStore;
+
+    public RegionDissolver(GeometryFactory geometryFactory, CoordinateStore coordinateStore) {
+        this.geometryFactory = geometryFactory;
+        this.coordinateStore = coordinateStore;
+    }
+
+    /** The regions of {@code level}, in the order their first part appears in {@code regions}. */
+    public List<AdminRegion> dissolve(String countryCode, List<AdminRegion> regions, int level) {
+        Map<Map<String, String>, List<MultiPolygon>> groups = new LinkedHashMap<>();
+        for (AdminRegion region : regions) {
+            groups.computeIfAbsent(AdminRegion.propertiesToLevel(region.getProperties(), level),
+                    key -> new ArrayList<>()).add(region.getGeometry());
+        }
+
+        List<AdminRegion> dissolved = new ArrayList<>(groups.size());
+        groups.forEach((properties, parts) -> {
+            // A lone region is already in the store and needs no union
+            MultiPolygon geometry = parts.size() == 1 ? parts.get(0)
+                    : StoredGeometry.copy(UnaryUnionOp.union(parts), geometryFactory, coordinateStore);
+            if (!geometry.isEmpty()) {
+                dissolved.add(new AdminRegion(countryCode, geometry, properties));
+            }
+        });
+        return dissolved;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bigboi.geojson.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Moves the polygons of a JTS operation's result, which keeps a Coordinate
+ * object per vertex, into the coordinate store.
+ */
+final class StoredGeometry {
+    private StoredGeometry() {
+    }
+
+    /** The polygons of {@code geometry} as one MultiPolygon; other components are dropped. */
+    static MultiPolygon copy(Geometry geometry, GeometryFactory geometryFactory, CoordinateStore coordinateStore) {
+        List<Polygon> polygons = new ArrayList<>(geometry.getNumGeometries());
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof Polygon polygon && !polygon.isEmpty()) {
+                polygons.add(copy(polygon, geometryFactory, coordinateStore));
+            }
+        }
+        return geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+    }
+
+    private static Polygon copy(Polygon polygon, GeometryFactory geometryFactory, CoordinateStore coordinateStore) {
+        LinearRing shell = copy(polygon.getExteriorRing(), geometryFactory, coordinateStore);
+        LinearRing[] holes = new LinearRing[polygon.getNumInteriorRing()];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = copy(polygon.getInteriorRingN(i), geometryFactory, coordinateStore);
+        }
+        return geometryFactory.createPolygon(shell, holes);
+    }
+
+    private static LinearRing copy(LinearRing ring, GeometryFactory geometryFactory,
+            CoordinateStore coordinateStore) {
+        CoordinateSequence sequence = ring.getCoordinateSequence();
+        double[] xy = new double[sequence.size() * 2];
+        for (int k = 0; k < sequence.size(); k++) {
+            xy[2 * k] = sequence.getX(k);
+            xy[2 * k + 1] = sequence.getY(k);
+        }
+        return geometryFactory.createLinearRing(coordinateStore.create(xy, xy.length));
+    }
+}
@@ -0,0 +1,240 @@
+package com.bigboi.geojson.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.bigboi.geojson.models.AdminRegion;
+
+/**
+ * Quadtree of cells over one country, built at load time. Every leaf is
+ * either empty, entirely inside a single region, or a boundary cell with the
+ * short list of regions that may contain points in it. Points in interior
+ * leaves are resolved by walking the tree alone, without any geometry test.
+ *
+ * <p>
+ * Nodes are split breadth first until the maximum depth or the node budget
+ * is reached, so a small budget still refines the coarse levels evenly.
+ */
+public class InteriorGrid {
+    // Approximate heap cost of one node (two int slots) and one candidate entry
+    public static final int BYTES_PER_NODE = 8;
+    public static final int BYTES_PER_CANDIDATE = 4;
+
+    private static final int EMPTY = -1;
+
+    private final AdminRegion[] regions;
+    private final Envelope root;
+    // Index of the first of four children, or 0 for a leaf (the root is never a child)
+    private final int[] firstChild;
+    // For leaves: region index when interior, EMPTY, or -2 - k for boundary list k
+    private final int[] payload;
+    private final int[] candidateOffsets;
+    private final int[] candidates;
+    private final int interiorLeaves;
+
+    private InteriorGrid(AdminRegion[] regions, Envelope root, int[] firstChild, int[] payload,
+            int[] candidateOffsets, int[] candidates, int interiorLeaves) {
+        this.regions = regions;
+        this.root = root;
+        this.firstChild = firstChild;
+        this.payload = payload;
+        this.candidateOffsets = candidateOffsets;
+        this.candidates = candidates;
+        this.interiorLeaves = interiorLeaves;
+    }
+
+    public static InteriorGrid build(List<AdminRegion> regionList, Envelope bounds, int maxDepth, long budgetBytes) {
+        AdminRegion[] regions = regionList.toArray(new AdminRegion[0]);
+        IntArray firstChild = new IntArray();
+        IntArray payload = new IntArray();
+        IntArray candidateOffsets = new IntArray();
+        IntArray candidates = new IntArray();
+        candidateOffsets.add(0);
+
+        int[] all = new int[regions.length];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+
+        Deque<Cell> queue = new ArrayDeque<>();
+        firstChild.add(0);
+        payload.add(EMPTY);
+        queue.add(new Cell(0, bounds, 0, all));
+        int interiorLeaves = 0;
+
+        while (!queue.isEmpty()) {
+            Cell cell = queue.poll();
+            int[] overlapping = overlapping(regions, cell.candidates, cell.envelope);
+
+            if (overlapping.length == 0) {
+                continue;
+            }
+            int interior = interiorRegion(regions, overlapping, cell.envelope);
+            if (interior >= 0) {
+                payload.set(cell.node, interior);
+                interiorLeaves++;
+                continue;
+            }
+
+            long used = (long) firstChild.size() * BYTES_PER_NODE + (long) candidates.size() * BYTES_PER_CANDIDATE;
+            if (cell.depth < maxDepth && used + 4L * BYTES_PER_NODE <= budgetBytes) {
+                int child = firstChild.size();
+                firstChild.set(cell.node, child);
+                Envelope e = cell.envelope;
+                double midX = (e.getMinX() + e.getMaxX()) / 2;
+                double midY = (e.getMinY() + e.getMaxY()) / 2;
+                Envelope[] quadrants = {
+                        new Envelope(e.getMinX(), midX, e.getMinY(), midY),
+                        new Envelope(midX, e.getMaxX(), e.getMinY(), midY),
+                        new Envelope(e.getMinX(), midX, midY, e.getMaxY()),
+                        new Envelope(midX, e.getMaxX(), midY, e.getMaxY()) };
+                for (int q = 0; q < 4; q++) {
+                    firstChild.add(0);
+                    payload.add(EMPTY);
+                    queue.add(new Cell(child + q, quadrants[q], cell.depth + 1, overlapping));
+                }
+            } else {
+                payload.set(cell.node, -2 - (candidateOffsets.size() - 1));
+                for (int region : overlapping) {
+                    candidates.add(region);
+                }
+                candidateOffsets.add(candidates.size());
+            }
+        }
+
+        return new InteriorGrid(regions, bounds, firstChild.toArray(), payload.toArray(),
+                candidateOffsets.toArray(), candidates.toArray(), interiorLeaves);
+    }
+
+    private static int[] overlapping(AdminRegion[] regions, int[] candidates, Envelope envelope) {
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int region : candidates) {
+            if (regions[region].getEnvelope().intersects(envelope)) {
+                result[count++] = region;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int interiorRegion(AdminRegion[] regions, int[] overlapping, Envelope envelope) {
+        for (int region : overlapping) {
+            if (regions[region].containsRectangle(envelope)) {
+                return region;
+            }
+        }
+        return -1;
+    }
+
+    /** The region whose interior the point's leaf lies in, or {@code null}. */
+    public AdminRegion interiorAt(double x, double y) {
+        int leaf = leafAt(x, y);
+        if (leaf < 0 || payload[leaf] < 0) {
+            return null;
+        }
+        return regions[payload[leaf]];
+    }
+
+    /**
+     * Regions to test exactly for a point in a boundary leaf; empty for empty
+     * and interior leaves.
+     */
+    public List<AdminRegion> candidatesAt(double x, double y) {
+        int leaf = leafAt(x, y);
+        if (leaf < 0 || payload[leaf] >= EMPTY) {
+            return Collections.emptyList();
+        }
+        int list = -2 - payload[leaf];
+        List<AdminRegion> result = new ArrayList<>(candidateOffsets[list + 1] - candidateOffsets[list]);
+        for (int i = candidateOffsets[list]; i < candidateOffsets[list + 1]; i++) {
+            result.add(regions[candidates[i]]);
+        }
+        return result;
+    }
+
+    private int leafAt(double x, double y) {
+        if (!root.contains(x, y)) {
+            return -1;
+        }
+        double minX = root.getMinX();
+        double maxX = root.getMaxX();
+        double minY = root.getMinY();
+        double maxY = root.getMaxY();
+        int node = 0;
+        while (firstChild[node] != 0) {
+            double midX = (minX + maxX) / 2;
+            double midY = (minY + maxY) / 2;
+            int quadrant = 0;
+            if (x >= midX) {
+                quadrant |= 1;
+                minX = midX;
+            } else {
+                maxX = midX;
+            }
+            if (y >= midY) {
+                quadrant |= 2;
+                minY = midY;
+            } else {
+                maxY = midY;
+            }
+            node = firstChild[node] + quadrant;
+        }
+        return node;
+    }
+
+    public int getNodeCount() {
+        return firstChild.length;
+    }
+
+    public int getInteriorLeaves() {
+        return interiorLeaves;
+    }
+
+    public long getSizeBytes() {
+        return (long) firstChild.length * BYTES_PER_NODE + (long) candidates.length * BYTES_PER_CANDIDATE;
+    }
+
+    private static class Cell {
+        final int node;
+        final Envelope envelope;
+        final int depth;
+        final int[] candidates;
+
+        Cell(int node, Envelope envelope, int depth, int[] candidates) {
+            this.node = node;
+            this.envelope = envelope;
+            this.depth = depth;
+            this.candidates = candidates;
+        }
+    }
+
+    private static class IntArray {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
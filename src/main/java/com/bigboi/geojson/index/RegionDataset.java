@@ -0,0 +1,76 @@
+package com.bigboi.geojson.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.bigboi.geojson.models.CountryData;
+import com.bigboi.geojson.models.LoadReport;
+
+/**
+ * Complete lookup state: the loaded countries and the index over them. A
+ * dataset is never modified after it is built; reloads build a new one and
+ * publish it with a single reference swap, so a lookup always sees one
+ * consistent dataset from start to finish.
+ */
+public class RegionDataset {
+    private static final RegionDataset EMPTY = new RegionDataset(0, Map.of(), RegionIndex.empty(), Map.of(),
+            Map.of(), Collections.emptyList());
+
+    private final long generation;
+    private final Map<String, CountryData> countries;
+    private final RegionIndex index;
+    private final Map<Integer, Map<String, CountryData>> levels;
+    private final Map<Integer, RegionIndex> levelIndexes;
+    private final List<LoadReport> loadReports;
+
+    public RegionDataset(long generation, Map<String, CountryData> countries, RegionIndex index,
+            Map<Integer, Map<String, CountryData>> levels, Map<Integer, RegionIndex> levelIndexes,
+            List<LoadReport> loadReports) {
+        this.generation = generation;
+        this.countries = Map.copyOf(countries);
+        this.index = index;
+        this.levels = Map.copyOf(levels);
+        this.levelIndexes = Map.copyOf(levelIndexes);
+        this.loadReports = List.copyOf(loadReports);
+    }
+
+    public static RegionDataset empty() {
+        return EMPTY;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Map<String, CountryData> getCountries() {
+        return countries;
+    }
+
+    /** The index over the finest file of every country, for lookups at any level. */
+    public RegionIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Per indexed level, the regions every country is indexed with at that
+     * level: its own coarser file, regions dissolved from the finest one, or
+     * the finest file itself when there is nothing coarser.
+     */
+    public Map<Integer, Map<String, CountryData>> getLevels() {
+        return levels;
+    }
+
+    /** The index of a level, or {@code null} when lookups at that level use {@link #getIndex()}. */
+    public RegionIndex getLevelIndex(int level) {
+        return levelIndexes.get(level);
+    }
+
+    public Map<Integer, RegionIndex> getLevelIndexes() {
+        return levelIndexes;
+    }
+
+    public List<LoadReport> getLoadReports() {
+        return loadReports;
+    }
+}
@@ -0,0 +1,156 @@
+package com.bigboi.geojson.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.AdminRegion;
+import com.bigboi.geojson.models.CountryData;
+
+/**
+ * Two-stage spatial index: an STRtree over the footprint envelopes of every
+ * country picks the few countries near a point, then that country's own
+ * STRtree over region envelopes, or its {@link InteriorGrid} when grids are
+ * built, picks the regions to test. Instances are immutable once built.
+ */
+public class RegionIndex {
+    private static final int MIN_GRID_BUDGET = 64 * 1024;
+    private static final RegionIndex EMPTY = new RegionIndex(built(new STRtree()), Map.of(), Map.of(), 0);
+
+    private final STRtree countryIndex;
+    private final Map<String, STRtree> regionIndexes;
+    private final Map<String, InteriorGrid> grids;
+    private final int regionCount;
+
+    private RegionIndex(STRtree countryIndex, Map<String, STRtree> regionIndexes, Map<String, InteriorGrid> grids,
+            int regionCount) {
+        this.countryIndex = countryIndex;
+        this.regionIndexes = regionIndexes;
+        this.grids = grids;
+        this.regionCount = regionCount;
+    }
+
+    public static RegionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the index. When {@code grid} settings are given, an interior grid is
+     * also built for every country within the shared memory budget.
+     */
+    public static RegionIndex build(Map<String, CountryData> countries, LocationProperties.Grid grid) {
+        return update(EMPTY, countries, Set.of(), grid);
+    }
+
+    /**
+     * Builds the index for {@code countries}, taking the region index and grid
+     * of every country in {@code unchanged} from {@code previous} instead of
+     * rebuilding them. Only the country footprint tree, which is small, is
+     * always rebuilt.
+     */
+    public static RegionIndex update(RegionIndex previous, Map<String, CountryData> countries, Set<String> unchanged,
+            LocationProperties.Grid grid) {
+        STRtree countryIndex = new STRtree();
+        countries.forEach((countryCode, country) -> {
+            for (Envelope envelope : country.getBounds().getFootprint()) {
+                countryIndex.insert(envelope, countryCode);
+            }
+        });
+
+        Map<String, STRtree> regionIndexes = new ConcurrentHashMap<>();
+        countries.values().parallelStream().forEach(country -> {
+            STRtree reused = unchanged.contains(country.getCountryCode())
+                    ? previous.regionIndexes.get(country.getCountryCode())
+                    : null;
+            if (reused != null) {
+                regionIndexes.put(country.getCountryCode(), reused);
+                return;
+            }
+            STRtree index = new STRtree();
+            for (AdminRegion region : country.getRegions()) {
+                index.insert(region.getEnvelope(), region);
+            }
+            regionIndexes.put(country.getCountryCode(), built(index));
+        });
+
+        int regionCount = countries.values().stream().mapToInt(country -> country.getRegions().size()).sum();
+        Map<String, InteriorGrid> grids = grid != null
+                ? buildGrids(previous, countries, unchanged, grid, regionCount)
+                : Map.of();
+        return new RegionIndex(built(countryIndex), Map.copyOf(regionIndexes), grids, regionCount);
+    }
+
+    private static Map<String, InteriorGrid> buildGrids(RegionIndex previous, Map<String, CountryData> countries,
+            Set<String> unchanged, LocationProperties.Grid grid, int regionCount) {
+        long budget = grid.getMemoryBudgetMb() << 20;
+        Map<String, InteriorGrid> grids = new ConcurrentHashMap<>();
+        countries.values().parallelStream().forEach(country -> {
+            List<AdminRegion> regions = country.getRegions();
+            if (regions.isEmpty()) {
+                return;
+            }
+            // A kept grid keeps its original budget share even if the total has changed
+            InteriorGrid reused = unchanged.contains(country.getCountryCode())
+                    ? previous.grids.get(country.getCountryCode())
+                    : null;
+            if (reused != null) {
+                grids.put(country.getCountryCode(), reused);
+                return;
+            }
+            long share = Math.max(MIN_GRID_BUDGET, budget * regions.size() / Math.max(regionCount, 1));
+            grids.put(country.getCountryCode(), InteriorGrid.build(regions, country.getBounds().getEnvelope(),
+                    grid.getMaxDepth(), share));
+        });
+        return Map.copyOf(grids);
+    }
+
+    private static STRtree built(STRtree index) {
+        index.build();
+        return index;
+    }
+
+    /** Countries whose footprint covers the search envelope. */
+    @SuppressWarnings("unchecked")
+    public List<String> countriesAt(Envelope search) {
+        List<String> countries = countryIndex.query(search);
+        if (countries.size() > 1) {
+            // A country is listed once per footprint envelope that matched
+            return countries.stream().distinct().toList();
+        }
+        return countries;
+    }
+
+    /** Regions of one country whose envelope covers the search envelope. */
+    @SuppressWarnings("unchecked")
+    public List<AdminRegion> regionsAt(String countryCode, Envelope search) {
+        STRtree index = regionIndexes.get(countryCode);
+        return index == null ? Collections.emptyList() : index.query(search);
+    }
+
+    /** The interior grid of a country, or {@code null} when grids are not built. */
+    public InteriorGrid gridFor(String countryCode) {
+        return grids.get(countryCode);
+    }
+
+    public long getGridSizeBytes() {
+        return grids.values().stream().mapToLong(InteriorGrid::getSizeBytes).sum();
+    }
+
+    public int getCountryCount() {
+        return regionIndexes.size();
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getCountryIndexSize() {
+        return countryIndex.size();
+    }
+}
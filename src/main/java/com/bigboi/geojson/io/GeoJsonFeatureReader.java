@@ -0,0 +1,276 @@
+package com.bigboi.geojson.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+
+import com.bigboi.geojson.geometry.CoordinateStore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams the features of a GeoJSON FeatureCollection one at a time. Ring
+ * coordinates are read straight off the token stream into a scratch buffer
+ * and handed to the {@link CoordinateStore}, so only the feature being parsed
+ * is ever held as intermediate data, never the whole document.
+ */
+public class GeoJsonFeatureReader {
+    private static final TypeReference<Map<String, Object>> PROPERTIES_TYPE = new TypeReference<>() {
+    };
+
+    @FunctionalInterface
+    public interface FeatureHandler {
+        /**
+         * @param feature position of the feature in the collection, counting
+         *                skipped ones, as accepted by {@link #readProperties}
+         */
+        void accept(int feature, Map<String, Object> properties, MultiPolygon geometry);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final GeometryFactory geometryFactory;
+    private final CoordinateStore coordinateStore;
+
+    public GeoJsonFeatureReader(ObjectMapper objectMapper, GeometryFactory geometryFactory,
+            CoordinateStore coordinateStore) {
+        this.objectMapper = objectMapper;
+        this.geometryFactory = geometryFactory;
+        this.coordinateStore = coordinateStore;
+    }
+
+    /**
+     * Reads every feature of the collection and hands it to the handler.
+     * Features whose geometry cannot be built are reported and skipped. The
+     * stream is left open for the caller to close.
+     *
+     * @return the number of features passed to the handler
+     */
+    public int read(InputStream in, FeatureHandler handler) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Invalid GeoJSON: not a FeatureCollection");
+            }
+
+            String type = null;
+            int count = 0;
+            int feature = 0;
+            RingBuffer buffer = new RingBuffer();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field)) {
+                    type = parser.getText();
+                    if (!"FeatureCollection".equals(type)) {
+                        throw new IllegalArgumentException("Invalid GeoJSON: not a FeatureCollection");
+                    }
+                } else if ("features".equals(field) && value == JsonToken.START_ARRAY) {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                        } else if (readFeature(parser, feature++, buffer, handler)) {
+                            count++;
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (type == null) {
+                throw new IllegalArgumentException("Invalid GeoJSON: not a FeatureCollection");
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads only the properties of one feature, skipping every geometry on
+     * the way. For reading back what was not kept in memory at load time.
+     */
+    public Map<String, Object> readProperties(InputStream in, int feature) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Invalid GeoJSON: not a FeatureCollection");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"features".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int current = 0;
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT || current++ != feature) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT && "properties".equals(name)) {
+                            return objectMapper.readValue(parser, PROPERTIES_TYPE);
+                        }
+                        parser.skipChildren();
+                    }
+                    return Collections.emptyMap();
+                }
+            }
+            throw new IOException("No feature " + feature + " in the collection");
+        }
+    }
+
+    private boolean readFeature(JsonParser parser, int feature, RingBuffer buffer, FeatureHandler handler)
+            throws IOException {
+        Map<String, Object> properties = Collections.emptyMap();
+        List<List<CoordinateSequence>> polygons = Collections.emptyList();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("properties".equals(field) && value == JsonToken.START_OBJECT) {
+                properties = objectMapper.readValue(parser, PROPERTIES_TYPE);
+            } else if ("geometry".equals(field) && value == JsonToken.START_OBJECT) {
+                polygons = readGeometry(parser, buffer);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        MultiPolygon geometry;
+        try {
+            geometry = createMultiPolygon(polygons);
+        } catch (Exception e) {
+            System.err.println("Error processing feature: " + e.getMessage());
+            return false;
+        }
+        handler.accept(feature, properties, geometry);
+        return true;
+    }
+
+    /**
+     * Reads a geometry object into a list of polygons, each a list of rings with
+     * the shell first. Geometry types other than (Multi)Polygon yield no
+     * polygons.
+     */
+    private List<List<CoordinateSequence>> readGeometry(JsonParser parser, RingBuffer buffer) throws IOException {
+        String type = null;
+        List<List<CoordinateSequence>> polygons = Collections.emptyList();
+        JsonNode deferred = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("type".equals(field)) {
+                type = parser.getText();
+            } else if ("coordinates".equals(field) && value == JsonToken.START_ARRAY) {
+                if (type != null) {
+                    polygons = readCoordinates(parser, type, buffer);
+                } else {
+                    // Coordinates before the type member: rare enough to fall back to a tree
+                    deferred = objectMapper.readTree(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (deferred != null && type != null) {
+            try (JsonParser tokens = objectMapper.treeAsTokens(deferred)) {
+                tokens.nextToken();
+                polygons = readCoordinates(tokens, type, buffer);
+            }
+        }
+        return polygons;
+    }
+
+    private List<List<CoordinateSequence>> readCoordinates(JsonParser parser, String type, RingBuffer buffer)
+            throws IOException {
+        List<List<CoordinateSequence>> polygons = new ArrayList<>();
+        if ("MultiPolygon".equals(type)) {
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                polygons.add(readPolygon(parser, buffer));
+            }
+        } else if ("Polygon".equals(type)) {
+            polygons.add(readPolygon(parser, buffer));
+        } else {
+            parser.skipChildren();
+        }
+        return polygons;
+    }
+
+    private List<CoordinateSequence> readPolygon(JsonParser parser, RingBuffer buffer) throws IOException {
+        List<CoordinateSequence> rings = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            rings.add(readRing(parser, buffer));
+        }
+        return rings;
+    }
+
+    private CoordinateSequence readRing(JsonParser parser, RingBuffer buffer) throws IOException {
+        buffer.clear();
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            double x = parser.getDoubleValue();
+            parser.nextToken();
+            double y = parser.getDoubleValue();
+            // Ignore any altitude or measure ordinates
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            buffer.add(x, y);
+        }
+        return coordinateStore.create(buffer.values, buffer.size);
+    }
+
+    private MultiPolygon createMultiPolygon(List<List<CoordinateSequence>> polygonRings) {
+        List<Polygon> polygons = new ArrayList<>(polygonRings.size());
+        for (List<CoordinateSequence> rings : polygonRings) {
+            if (rings.isEmpty()) {
+                continue;
+            }
+            LinearRing shell = geometryFactory.createLinearRing(rings.get(0));
+            LinearRing[] holes = new LinearRing[rings.size() - 1];
+            for (int i = 1; i < rings.size(); i++) {
+                holes[i - 1] = geometryFactory.createLinearRing(rings.get(i));
+            }
+            polygons.add(geometryFactory.createPolygon(shell, holes));
+        }
+        return geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+    }
+
+    /** Growable x/y scratch array reused for every ring of a file. */
+    private static class RingBuffer {
+        private double[] values = new double[1024];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double x, double y) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = x;
+            values[size++] = y;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bigboi.geojson.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The small pieces of GeoJSON geometry the query API needs beyond the
+ * streaming file reader: parsing a polygon sent in a request, and writing
+ * polygonal geometry back out.
+ */
+public final class GeoJsonGeometries {
+    private GeoJsonGeometries() {
+    }
+
+    /**
+     * A Polygon or MultiPolygon geometry object, or a Feature holding one.
+     *
+     * @throws IllegalArgumentException when the object is not one of those or
+     *                                  its rings are malformed
+     */
+    public static Geometry read(JsonNode node, GeometryFactory geometryFactory) {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a GeoJSON Polygon or MultiPolygon object");
+        }
+        String type = node.path("type").asText();
+        JsonNode coordinates = node.path("coordinates");
+        switch (type) {
+            case "Feature":
+                return read(node.get("geometry"), geometryFactory);
+            case "Polygon":
+                return readPolygon(coordinates, geometryFactory);
+            case "MultiPolygon": {
+                List<Polygon> polygons = new ArrayList<>(coordinates.size());
+                for (JsonNode polygon : coordinates) {
+                    polygons.add(readPolygon(polygon, geometryFactory));
+                }
+                return geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported geometry type '" + type
+                        + "'; expected Polygon or MultiPolygon");
+        }
+    }
+
+    private static Polygon readPolygon(JsonNode rings, GeometryFactory geometryFactory) {
+        if (!rings.isArray() || rings.isEmpty()) {
+            throw new IllegalArgumentException("A polygon needs at least an exterior ring");
+        }
+        LinearRing shell = readRing(rings.get(0), geometryFactory);
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = readRing(rings.get(i), geometryFactory);
+        }
+        return geometryFactory.createPolygon(shell, holes);
+    }
+
+    private static LinearRing readRing(JsonNode positions, GeometryFactory geometryFactory) {
+        if (!positions.isArray() || positions.size() < 4) {
+            throw new IllegalArgumentException("A ring needs at least four positions");
+        }
+        CoordinateSequence sequence = geometryFactory.getCoordinateSequenceFactory().create(positions.size(), 2);
+        for (int i = 0; i < positions.size(); i++) {
+            JsonNode position = positions.get(i);
+            if (position.size() < 2 || !position.get(0).isNumber() || !position.get(1).isNumber()) {
+                throw new IllegalArgumentException("Positions are [longitude, latitude] number pairs");
+            }
+            sequence.setOrdinate(i, 0, position.get(0).asDouble());
+            sequence.setOrdinate(i, 1, position.get(1).asDouble());
+        }
+        // createLinearRing rejects rings that are not closed
+        return geometryFactory.createLinearRing(sequence);
+    }
+
+    /**
+     * Writes the polygons of {@code geometry} as one MultiPolygon object. Lines
+     * and points, which clipping leaves where a region only touches the area,
+     * are left out.
+     */
+    public static void writeMultiPolygon(JsonGenerator generator, Geometry geometry) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "MultiPolygon");
+        generator.writeArrayFieldStart("coordinates");
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (!(part instanceof Polygon polygon) || polygon.isEmpty()) {
+                continue;
+            }
+            generator.writeStartArray();
+            writeRing(generator, polygon.getExteriorRing().getCoordinateSequence());
+            for (int k = 0; k < polygon.getNumInteriorRing(); k++) {
+                writeRing(generator, polygon.getInteriorRingN(k).getCoordinateSequence());
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeRing(JsonGenerator generator, CoordinateSequence sequence) throws IOException {
+        generator.writeStartArray();
+        for (int i = 0; i < sequence.size(); i++) {
+            generator.writeStartArray();
+            generator.writeNumber(sequence.getX(i));
+            generator.writeNumber(sequence.getY(i));
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+}
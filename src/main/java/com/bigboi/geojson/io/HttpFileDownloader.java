@@ -0,0 +1,185 @@
+package com.bigboi.geojson.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+/**
+ * Downloads one URL to a file without ever leaving a partial file under the
+ * final name. Bytes go to {@code <name>.part} and are renamed into place
+ * once complete; an interrupted {@code .part} is resumed with a Range
+ * request. The validators of every response are kept in a
+ * {@code <name>.meta} sidecar, so the next run can ask the server whether
+ * the file changed instead of transferring it again.
+ */
+public class HttpFileDownloader {
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String PART_ETAG = "part.etag";
+    private static final String PART_LAST_MODIFIED = "part.last-modified";
+    private static final long TRANSFER_CHUNK = 1 << 20;
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    public HttpFileDownloader(HttpClient client, Duration timeout) {
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    public enum Outcome {
+        DOWNLOADED, RESUMED, NOT_MODIFIED
+    }
+
+    /** What a single download did and how many bytes it moved. */
+    public record Result(Outcome outcome, long bytes) {
+    }
+
+    public Result download(URI uri, Path target) throws IOException, InterruptedException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path metaFile = target.resolveSibling(target.getFileName() + ".meta");
+        Properties meta = readMeta(metaFile);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout).GET();
+        long resumeFrom = 0;
+        String partValidator = meta.getProperty(PART_ETAG, meta.getProperty(PART_LAST_MODIFIED));
+        if (Files.exists(part) && partValidator != null) {
+            resumeFrom = Files.size(part);
+            // If-Range: the server only honours the range if the file is still the one we started
+            request.header("Range", "bytes=" + resumeFrom + "-").header("If-Range", partValidator);
+        } else if (Files.exists(target)) {
+            if (meta.getProperty(ETAG) != null) {
+                request.header("If-None-Match", meta.getProperty(ETAG));
+            }
+            String lastModified = meta.getProperty(LAST_MODIFIED,
+                    httpDate(Files.getLastModifiedTime(target).toInstant()));
+            request.header("If-Modified-Since", lastModified);
+        }
+
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 304) {
+            response.body().close();
+            return new Result(Outcome.NOT_MODIFIED, 0);
+        }
+        if (status == 416 && resumeFrom > 0) {
+            response.body().close();
+            // The part already holds the whole file, e.g. the run stopped before renaming it
+            String contentRange = response.headers().firstValue("Content-Range").orElse("").trim();
+            if (contentRange.equals("bytes */" + resumeFrom)) {
+                complete(part, target, metaFile, meta, meta.getProperty(PART_ETAG),
+                        meta.getProperty(PART_LAST_MODIFIED));
+                return new Result(Outcome.RESUMED, 0);
+            }
+            // Not a prefix of the remote file after all: start over rather than fail on every run
+            discardPart(part, metaFile, meta);
+            return download(uri, target);
+        }
+        if (status != 200 && status != 206) {
+            response.body().close();
+            throw new IOException("HTTP " + status + " for " + uri);
+        }
+
+        boolean resumed = status == 206 && resumeFrom > 0;
+        if (status == 206 && !response.headers().firstValue("Content-Range").orElse("")
+                .startsWith("bytes " + resumeFrom + "-")) {
+            response.body().close();
+            discardPart(part, metaFile, meta);
+            throw new IOException("Unexpected range in resumed download of " + uri);
+        }
+        long position = resumed ? resumeFrom : 0;
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        // Remember what the partial file is a prefix of before writing any of it
+        setOrRemove(meta, PART_ETAG, etag);
+        setOrRemove(meta, PART_LAST_MODIFIED, lastModified);
+        writeMeta(metaFile, meta);
+
+        long written;
+        try (InputStream body = response.body();
+                ReadableByteChannel source = Channels.newChannel(body);
+                FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(position);
+            written = transfer(source, channel, position);
+            channel.force(false);
+        }
+
+        complete(part, target, metaFile, meta, etag, lastModified);
+        return new Result(resumed ? Outcome.RESUMED : Outcome.DOWNLOADED, written);
+    }
+
+    /** Renames a finished part into place and keeps its validators for the next run. */
+    private static void complete(Path part, Path target, Path metaFile, Properties meta, String etag,
+            String lastModified) throws IOException {
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        meta.remove(PART_ETAG);
+        meta.remove(PART_LAST_MODIFIED);
+        setOrRemove(meta, ETAG, etag);
+        setOrRemove(meta, LAST_MODIFIED, lastModified);
+        writeMeta(metaFile, meta);
+    }
+
+    private static void discardPart(Path part, Path metaFile, Properties meta) throws IOException {
+        Files.deleteIfExists(part);
+        meta.remove(PART_ETAG);
+        meta.remove(PART_LAST_MODIFIED);
+        writeMeta(metaFile, meta);
+    }
+
+    private static long transfer(ReadableByteChannel source, FileChannel channel, long position) throws IOException {
+        long start = position;
+        long count;
+        // The source blocks until data arrives, so nothing transferred means the body has ended
+        while ((count = channel.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+            position += count;
+        }
+        return position - start;
+    }
+
+    private static void setOrRemove(Properties meta, String key, String value) {
+        if (value != null) {
+            meta.setProperty(key, value);
+        } else {
+            meta.remove(key);
+        }
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+
+    private static Properties readMeta(Path metaFile) throws IOException {
+        Properties meta = new Properties();
+        if (Files.exists(metaFile)) {
+            try (Reader reader = Files.newBufferedReader(metaFile)) {
+                meta.load(reader);
+            }
+        }
+        return meta;
+    }
+
+    private static void writeMeta(Path metaFile, Properties meta) throws IOException {
+        Path temp = metaFile.resolveSibling(metaFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            meta.store(writer, null);
+        }
+        Files.move(temp, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,261 @@
+package com.bigboi.geojson.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one Mapbox Vector Tile (spec 2.1) with a single layer of polygon
+ * features. The protobuf encoding is done by hand, since a tile only needs a
+ * handful of message types. Coordinates are given in tile pixels, already
+ * projected, and are rounded to the integer grid here; rings that collapse
+ * on it are dropped, and rings are reversed where needed so exteriors wind
+ * clockwise on screen and holes the other way.
+ */
+public class MvtEncoder {
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_BYTES = 2;
+    private static final int POLYGON = 3;
+    private static final int MOVE_TO = 1;
+    private static final int LINE_TO = 2;
+    private static final int CLOSE_PATH = 7;
+
+    private final String layerName;
+    private final int extent;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<String, Integer> values = new LinkedHashMap<>();
+    private final ProtoBuffer features = new ProtoBuffer();
+    private int featureCount;
+
+    // Reused per feature
+    private final IntList tags = new IntList();
+    private final IntList commands = new IntList();
+    private int[] ring = new int[64];
+
+    public MvtEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    /**
+     * Adds one feature made of {@code polygons}, each a list of rings with
+     * the exterior first, each ring x/y pairs in tile pixels. A ring may or
+     * may not repeat its first point at the end.
+     *
+     * @return false when nothing of the feature was left after rounding
+     */
+    public boolean addFeature(List<List<double[]>> polygons, Map<String, String> properties) {
+        commands.clear();
+        int[] cursor = new int[2];
+        for (List<double[]> polygon : polygons) {
+            for (int i = 0; i < polygon.size(); i++) {
+                boolean written = writeRing(polygon.get(i), i == 0, cursor);
+                if (!written && i == 0) {
+                    // No exterior, so no holes either
+                    break;
+                }
+            }
+        }
+        if (commands.size == 0) {
+            return false;
+        }
+
+        tags.clear();
+        properties.forEach((key, value) -> {
+            tags.add(keys.computeIfAbsent(key, k -> keys.size()));
+            tags.add(values.computeIfAbsent(value, v -> values.size()));
+        });
+
+        ProtoBuffer feature = new ProtoBuffer();
+        feature.writeVarintField(1, ++featureCount);
+        feature.writePacked(2, tags);
+        feature.writeVarintField(3, POLYGON);
+        feature.writePacked(4, commands);
+        features.writeBytesField(2, feature);
+        return true;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    /** The encoded tile; empty when no feature was added, which is a valid empty tile. */
+    public byte[] encode() {
+        if (featureCount == 0) {
+            return new byte[0];
+        }
+        ProtoBuffer layer = new ProtoBuffer();
+        layer.writeVarintField(15, 2);
+        layer.writeStringField(1, layerName);
+        layer.append(features);
+        for (String key : keys.keySet()) {
+            layer.writeStringField(3, key);
+        }
+        for (String value : values.keySet()) {
+            ProtoBuffer encoded = new ProtoBuffer();
+            encoded.writeStringField(1, value);
+            layer.writeBytesField(4, encoded);
+        }
+        layer.writeVarintField(5, extent);
+
+        ProtoBuffer tile = new ProtoBuffer();
+        tile.writeBytesField(3, layer);
+        return tile.toByteArray();
+    }
+
+    private boolean writeRing(double[] xy, boolean exterior, int[] cursor) {
+        int points = xy.length / 2;
+        if (ring.length < xy.length) {
+            ring = new int[xy.length];
+        }
+        // Round, dropping repeated points and the closing one
+        int n = 0;
+        for (int i = 0; i < points; i++) {
+            int x = (int) Math.round(xy[2 * i]);
+            int y = (int) Math.round(xy[2 * i + 1]);
+            if (n > 0 && ring[2 * n - 2] == x && ring[2 * n - 1] == y) {
+                continue;
+            }
+            ring[2 * n] = x;
+            ring[2 * n + 1] = y;
+            n++;
+        }
+        if (n > 1 && ring[0] == ring[2 * n - 2] && ring[1] == ring[2 * n - 1]) {
+            n--;
+        }
+        if (n < 3) {
+            return false;
+        }
+
+        long area = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            area += (long) ring[2 * i] * ring[2 * j + 1] - (long) ring[2 * j] * ring[2 * i + 1];
+        }
+        if (area == 0) {
+            return false;
+        }
+        boolean reverse = exterior ? area < 0 : area > 0;
+
+        commands.add(command(MOVE_TO, 1));
+        for (int k = 0; k < n; k++) {
+            int i = reverse ? (n - k) % n : k;
+            if (k == 1) {
+                commands.add(command(LINE_TO, n - 1));
+            }
+            int x = ring[2 * i];
+            int y = ring[2 * i + 1];
+            commands.add(zigzag(x - cursor[0]));
+            commands.add(zigzag(y - cursor[1]));
+            cursor[0] = x;
+            cursor[1] = y;
+        }
+        commands.add(command(CLOSE_PATH, 1));
+        return true;
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /** A growing array of ints, to avoid boxing commands and tags. */
+    private static final class IntList {
+        private int[] items = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /** Protobuf output for the few field types a tile uses. */
+    private static final class ProtoBuffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void writeVarintField(int field, long value) {
+            writeVarint((long) field << 3 | WIRE_VARINT);
+            writeVarint(value);
+        }
+
+        void writeStringField(int field, String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint((long) field << 3 | WIRE_BYTES);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        void writeBytesField(int field, ProtoBuffer message) {
+            writeVarint((long) field << 3 | WIRE_BYTES);
+            writeVarint(message.size);
+            write(message.bytes, 0, message.size);
+        }
+
+        /** Packed repeated uint32; the values are already zigzag or command encoded where needed. */
+        void writePacked(int field, IntList values) {
+            if (values.size == 0) {
+                return;
+            }
+            int length = 0;
+            for (int i = 0; i < values.size; i++) {
+                length += varintSize(values.items[i] & 0xFFFFFFFFL);
+            }
+            writeVarint((long) field << 3 | WIRE_BYTES);
+            writeVarint(length);
+            for (int i = 0; i < values.size; i++) {
+                writeVarint(values.items[i] & 0xFFFFFFFFL);
+            }
+        }
+
+        void append(ProtoBuffer other) {
+            write(other.bytes, 0, other.size);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private static int varintSize(long value) {
+            int n = 1;
+            while ((value & ~0x7FL) != 0) {
+                value >>>= 7;
+                n++;
+            }
+            return n;
+        }
+
+        private void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
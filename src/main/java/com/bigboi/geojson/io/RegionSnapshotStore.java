@@ -0,0 +1,627 @@
+package com.bigboi.geojson.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.core.io.Resource;
+
+import com.bigboi.geojson.geometry.CoordinateStore;
+import com.bigboi.geojson.geometry.OffHeapCoordinateSequence;
+import com.bigboi.geojson.models.AdminRegion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary snapshots of the regions parsed from one GeoJSON file, so later
+ * starts can map the file instead of parsing JSON again.
+ *
+ * <p>
+ * Layout, little endian:
+ *
+ * <pre>
+ * header       magic, version, source mtime, source length, source SHA-256,
+ *              region count, string count, section offsets
+ * strings      [length, UTF-8 bytes]... every property key and value, once
+ * regions      per region: envelope, admin levels and original properties as
+ *              string codes, then per polygon the point count and coordinate
+ *              offset of each ring (shell first)
+ * coordinates  8-byte aligned x,y doubles of every ring
+ * </pre>
+ *
+ * The STRtree is not stored: it is rebuilt from the region envelopes, which
+ * is cheap next to reading the geometry. Original properties are skipped
+ * when regions are read and decoded from the mapping only when asked for.
+ */
+public class RegionSnapshotStore {
+    private static final int MAGIC = 0x474A534E; // "GJSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + SourceFingerprint.HASH_LENGTH + 4 + 4 + 8 + 8 + 8;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_JSON = 5;
+
+    private final Path directory;
+    private final GeometryFactory geometryFactory;
+    private final ObjectMapper objectMapper;
+    private final CoordinateStore coordinateStore;
+
+    public RegionSnapshotStore(Path directory, GeometryFactory geometryFactory, ObjectMapper objectMapper,
+            CoordinateStore coordinateStore) {
+        this.directory = directory;
+        this.geometryFactory = geometryFactory;
+        this.objectMapper = objectMapper;
+        this.coordinateStore = coordinateStore;
+    }
+
+    public Path pathFor(String sourceName) {
+        return directory.resolve(sourceName + ".snap");
+    }
+
+    /**
+     * Reads the snapshot of a source file if one exists and was written from
+     * the same contents the source has now.
+     */
+    public Optional<List<AdminRegion>> read(String sourceName, String countryCode, Resource source)
+            throws IOException {
+        Path path = pathFor(sourceName);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+
+            if (!readFingerprint(buffer).matches(source)) {
+                System.out.println("Snapshot of " + sourceName + " is stale");
+                return Optional.empty();
+            }
+            RegionReader reader = new RegionReader(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+            return Optional.of(readRegions(buffer, countryCode, reader));
+        }
+    }
+
+    /** The fingerprint of the source a snapshot was written from, if there is a readable snapshot. */
+    public Optional<SourceFingerprint> readFingerprint(String sourceName) throws IOException {
+        Path path = pathFor(sourceName);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            return Optional.of(readFingerprint(buffer));
+        }
+    }
+
+    private static SourceFingerprint readFingerprint(ByteBuffer buffer) {
+        long lastModified = buffer.getLong();
+        long length = buffer.getLong();
+        byte[] hash = new byte[SourceFingerprint.HASH_LENGTH];
+        buffer.get(hash);
+        return new SourceFingerprint(lastModified, length, hash);
+    }
+
+    private List<AdminRegion> readRegions(ByteBuffer buffer, String countryCode, RegionReader reader)
+            throws IOException {
+        int regionCount = buffer.getInt();
+        int stringCount = buffer.getInt();
+        int stringsOffset = (int) buffer.getLong();
+        int regionsOffset = (int) buffer.getLong();
+        int coordinatesOffset = (int) buffer.getLong();
+
+        String[] strings = readStrings(buffer, stringsOffset, stringCount);
+
+        DoubleBuffer coordinates = buffer.duplicate()
+                .position(coordinatesOffset)
+                .slice()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asDoubleBuffer();
+
+        buffer.position(regionsOffset);
+        List<AdminRegion> regions = new ArrayList<>(regionCount);
+        for (int r = 0; r < regionCount; r++) {
+            // The envelope is only needed by readers that skip the geometry
+            buffer.position(buffer.position() + 4 * Double.BYTES);
+
+            int levelCount = buffer.getInt();
+            Map<String, String> levels = new HashMap<>(levelCount * 2);
+            for (int i = 0; i < levelCount; i++) {
+                levels.put(strings[buffer.getInt()], strings[buffer.getInt()]);
+            }
+
+            skipOriginalProperties(buffer);
+
+            Polygon[] polygons = new Polygon[buffer.getInt()];
+            for (int p = 0; p < polygons.length; p++) {
+                LinearRing[] rings = new LinearRing[buffer.getInt()];
+                for (int i = 0; i < rings.length; i++) {
+                    int points = buffer.getInt();
+                    int offset = (int) buffer.getLong();
+                    rings[i] = geometryFactory.createLinearRing(coordinateStore.wrap(coordinates, offset, points));
+                }
+                polygons[p] = geometryFactory.createPolygon(rings[0], Arrays.copyOfRange(rings, 1, rings.length));
+            }
+
+            int index = r;
+            regions.add(new AdminRegion(countryCode, geometryFactory.createMultiPolygon(polygons), levels)
+                    .withOriginalProperties(() -> reader.readOriginalProperties(index)));
+        }
+        return regions;
+    }
+
+    /**
+     * Maps a snapshot for reading single regions later, e.g. the
+     * full-resolution shape behind a simplified region or the original
+     * properties of a feature. Empty when there is no snapshot written from
+     * {@code fingerprint}.
+     */
+    public Optional<RegionReader> openRegions(String sourceName, SourceFingerprint fingerprint)
+            throws IOException {
+        Path path = pathFor(sourceName);
+        if (fingerprint == null || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            // The mapping stays valid after the channel is closed and the file replaced
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            SourceFingerprint stored = readFingerprint(buffer);
+            if (stored.getLength() != fingerprint.getLength()
+                    || !Arrays.equals(stored.getHash(), fingerprint.getHash())) {
+                return Optional.empty();
+            }
+            return Optional.of(new RegionReader(buffer));
+        }
+    }
+
+    /**
+     * Random access to the regions of one mapped snapshot. Rings wrap the
+     * mapping directly, so a geometry read here costs no heap for its
+     * ordinates regardless of the configured coordinate storage.
+     */
+    public class RegionReader {
+        private final ByteBuffer buffer;
+        private final DoubleBuffer coordinates;
+        private final int regionCount;
+        private final int stringCount;
+        private final int stringsOffset;
+        private final int regionsOffset;
+        // Start of every region record, found by one pass on first use
+        private int[] regionOffsets;
+        // The string table, decoded the first time properties are read
+        private String[] strings;
+
+        private RegionReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.regionCount = buffer.getInt();
+            this.stringCount = buffer.getInt();
+            this.stringsOffset = (int) buffer.getLong();
+            this.regionsOffset = (int) buffer.getLong();
+            int coordinatesOffset = (int) buffer.getLong();
+            this.coordinates = buffer.duplicate()
+                    .position(coordinatesOffset)
+                    .slice()
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+        }
+
+        public MultiPolygon read(int region) throws IOException {
+            ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            view.position(offsets()[region]);
+            skipProperties(view);
+            skipOriginalProperties(view);
+
+            Polygon[] polygons = new Polygon[view.getInt()];
+            for (int p = 0; p < polygons.length; p++) {
+                LinearRing[] rings = new LinearRing[view.getInt()];
+                for (int i = 0; i < rings.length; i++) {
+                    int points = view.getInt();
+                    int offset = (int) view.getLong();
+                    rings[i] = geometryFactory.createLinearRing(
+                            new OffHeapCoordinateSequence(coordinates.slice(offset, points * 2)));
+                }
+                polygons[p] = geometryFactory.createPolygon(rings[0], Arrays.copyOfRange(rings, 1, rings.length));
+            }
+            return geometryFactory.createMultiPolygon(polygons);
+        }
+
+        private synchronized int[] offsets() throws IOException {
+            if (regionOffsets == null) {
+                int[] offsets = new int[regionCount];
+                ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                view.position(regionsOffset);
+                for (int r = 0; r < regionCount; r++) {
+                    offsets[r] = view.position();
+                    skipProperties(view);
+                    skipOriginalProperties(view);
+                    int polygons = view.getInt();
+                    for (int p = 0; p < polygons; p++) {
+                        int rings = view.getInt();
+                        view.position(view.position() + rings * (Integer.BYTES + Long.BYTES));
+                    }
+                }
+                regionOffsets = offsets;
+            }
+            return regionOffsets;
+        }
+
+        /** The complete feature properties of a region, in their original order. */
+        public Map<String, Object> readOriginalProperties(int region) throws IOException {
+            ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            view.position(offsets()[region]);
+            skipProperties(view);
+            String[] table = strings();
+            int propertyCount = view.getInt();
+            Map<String, Object> original = new LinkedHashMap<>(propertyCount * 2);
+            for (int i = 0; i < propertyCount; i++) {
+                String key = table[view.getInt()];
+                original.put(key, readValue(view, table));
+            }
+            return original;
+        }
+
+        private synchronized String[] strings() {
+            if (strings == null) {
+                strings = readStrings(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN), stringsOffset, stringCount);
+            }
+            return strings;
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, int offset, int count) {
+        buffer.position(offset);
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /** Skips the envelope and admin levels of a region record. */
+    private static void skipProperties(ByteBuffer view) {
+        view.position(view.position() + 4 * Double.BYTES);
+        int levelCount = view.getInt();
+        view.position(view.position() + levelCount * 2 * Integer.BYTES);
+    }
+
+    private static void skipOriginalProperties(ByteBuffer view) throws IOException {
+        int propertyCount = view.getInt();
+        for (int i = 0; i < propertyCount; i++) {
+            view.getInt();
+            skipValue(view);
+        }
+    }
+
+    private static void skipValue(ByteBuffer view) throws IOException {
+        byte tag = view.get();
+        switch (tag) {
+            case TAG_NULL:
+                break;
+            case TAG_STRING:
+            case TAG_JSON:
+                view.getInt();
+                break;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                view.getLong();
+                break;
+            case TAG_BOOLEAN:
+                view.get();
+                break;
+            default:
+                throw new IOException("Corrupt snapshot: unknown value tag " + tag);
+        }
+    }
+
+    private Object readValue(ByteBuffer buffer, String[] strings) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return strings[buffer.getInt()];
+            case TAG_LONG:
+                long value = buffer.getLong();
+                return value == (int) value ? Integer.valueOf((int) value) : Long.valueOf(value);
+            case TAG_DOUBLE:
+                return buffer.getDouble();
+            case TAG_BOOLEAN:
+                return buffer.get() != 0;
+            case TAG_JSON:
+                return objectMapper.readValue(strings[buffer.getInt()], Object.class);
+            default:
+                throw new IOException("Corrupt snapshot: unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes the snapshot for a source file. The file is written next to its
+     * final name and moved into place, so readers never see a partial one.
+     */
+    public void write(String sourceName, SourceFingerprint fingerprint, List<AdminRegion> regions,
+            List<Map<String, Object>> originalProperties) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, sourceName, ".tmp");
+        try {
+            Map<String, Integer> strings = collectStrings(regions, originalProperties);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.position(HEADER_SIZE);
+                SnapshotOutput out = new SnapshotOutput(channel, HEADER_SIZE);
+
+                long stringsOffset = out.position();
+                for (String value : strings.keySet()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.putInt(bytes.length);
+                    out.putBytes(bytes);
+                }
+
+                long regionsOffset = out.position();
+                long coordinateIndex = 0;
+                for (int r = 0; r < regions.size(); r++) {
+                    AdminRegion region = regions.get(r);
+                    Envelope envelope = region.getGeometry().getEnvelopeInternal();
+                    out.putDouble(envelope.getMinX());
+                    out.putDouble(envelope.getMaxX());
+                    out.putDouble(envelope.getMinY());
+                    out.putDouble(envelope.getMaxY());
+
+                    Map<String, String> levels = region.getProperties();
+                    out.putInt(levels.size());
+                    for (Map.Entry<String, String> entry : levels.entrySet()) {
+                        out.putInt(strings.get(entry.getKey()));
+                        out.putInt(strings.get(entry.getValue()));
+                    }
+
+                    Map<String, Object> original = originalProperties.get(r);
+                    out.putInt(original.size());
+                    for (Map.Entry<String, Object> entry : original.entrySet()) {
+                        out.putInt(strings.get(entry.getKey()));
+                        writeValue(out, entry.getValue(), strings);
+                    }
+
+                    MultiPolygon geometry = region.getGeometry();
+                    out.putInt(geometry.getNumGeometries());
+                    for (int p = 0; p < geometry.getNumGeometries(); p++) {
+                        Polygon polygon = (Polygon) geometry.getGeometryN(p);
+                        out.putInt(polygon.getNumInteriorRing() + 1);
+                        for (int i = -1; i < polygon.getNumInteriorRing(); i++) {
+                            int points = ring(polygon, i).size();
+                            out.putInt(points);
+                            out.putLong(coordinateIndex);
+                            coordinateIndex += 2L * points;
+                        }
+                    }
+                }
+
+                out.alignTo(Double.BYTES);
+                long coordinatesOffset = out.position();
+                for (AdminRegion region : regions) {
+                    MultiPolygon geometry = region.getGeometry();
+                    for (int p = 0; p < geometry.getNumGeometries(); p++) {
+                        Polygon polygon = (Polygon) geometry.getGeometryN(p);
+                        for (int i = -1; i < polygon.getNumInteriorRing(); i++) {
+                            CoordinateSequence ring = ring(polygon, i);
+                            for (int k = 0; k < ring.size(); k++) {
+                                out.putDouble(ring.getX(k));
+                                out.putDouble(ring.getY(k));
+                            }
+                        }
+                    }
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putLong(fingerprint.getLastModified());
+                header.putLong(fingerprint.getLength());
+                header.put(fingerprint.getHash());
+                header.putInt(regions.size());
+                header.putInt(strings.size());
+                header.putLong(stringsOffset);
+                header.putLong(regionsOffset);
+                header.putLong(coordinatesOffset);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+            Files.move(temp, pathFor(sourceName), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static CoordinateSequence ring(Polygon polygon, int index) {
+        return index < 0 ? polygon.getExteriorRing().getCoordinateSequence()
+                : polygon.getInteriorRingN(index).getCoordinateSequence();
+    }
+
+    private Map<String, Integer> collectStrings(List<AdminRegion> regions,
+            List<Map<String, Object>> originalProperties) throws JsonProcessingException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (int r = 0; r < regions.size(); r++) {
+            regions.get(r).getProperties().forEach((key, value) -> {
+                intern(strings, key);
+                intern(strings, value);
+            });
+            for (Map.Entry<String, Object> entry : originalProperties.get(r).entrySet()) {
+                intern(strings, entry.getKey());
+                Object value = entry.getValue();
+                if (value instanceof String) {
+                    intern(strings, (String) value);
+                } else if (tagOf(value) == TAG_JSON) {
+                    intern(strings, objectMapper.writeValueAsString(value));
+                }
+            }
+        }
+        return strings;
+    }
+
+    private static void intern(Map<String, Integer> strings, String value) {
+        strings.putIfAbsent(value, strings.size());
+    }
+
+    private static byte tagOf(Object value) {
+        if (value == null) {
+            return TAG_NULL;
+        } else if (value instanceof String) {
+            return TAG_STRING;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return TAG_LONG;
+        } else if (value instanceof Double || value instanceof Float) {
+            return TAG_DOUBLE;
+        } else if (value instanceof Boolean) {
+            return TAG_BOOLEAN;
+        }
+        return TAG_JSON;
+    }
+
+    private void writeValue(SnapshotOutput out, Object value, Map<String, Integer> strings) throws IOException {
+        byte tag = tagOf(value);
+        out.putByte(tag);
+        switch (tag) {
+            case TAG_STRING:
+                out.putInt(strings.get(value));
+                break;
+            case TAG_LONG:
+                out.putLong(((Number) value).longValue());
+                break;
+            case TAG_DOUBLE:
+                out.putDouble(((Number) value).doubleValue());
+                break;
+            case TAG_BOOLEAN:
+                out.putByte((byte) (((Boolean) value) ? 1 : 0));
+                break;
+            case TAG_JSON:
+                out.putInt(strings.get(objectMapper.writeValueAsString(value)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Buffered little-endian writer that tracks its absolute file position. */
+    private static class SnapshotOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        SnapshotOutput(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+            position += 1;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+            position += Double.BYTES;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+            position += bytes.length;
+        }
+
+        void alignTo(int alignment) throws IOException {
+            while (position % alignment != 0) {
+                putByte((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bigboi.geojson.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Identifies the exact contents of a source GeoJSON file: its modification
+ * time and length for a cheap check, and a SHA-256 of the bytes for when
+ * the cheap check is inconclusive (a file touched but not changed).
+ */
+public class SourceFingerprint {
+    public static final int HASH_LENGTH = 32;
+
+    private final long lastModified;
+    private final long length;
+    private final byte[] hash;
+
+    public SourceFingerprint(long lastModified, long length, byte[] hash) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.hash = hash;
+    }
+
+    public static SourceFingerprint of(Resource resource, byte[] hash) throws IOException {
+        return new SourceFingerprint(resource.lastModified(), resource.contentLength(), hash);
+    }
+
+    public static SourceFingerprint compute(Resource resource) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return of(resource, digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Whether the resource still has the contents this fingerprint was taken
+     * from. The hash is only computed when the length matches but the
+     * modification time does not.
+     */
+    public boolean matches(Resource resource) throws IOException {
+        if (resource.contentLength() != length) {
+            return false;
+        }
+        if (resource.lastModified() == lastModified) {
+            return true;
+        }
+        return Arrays.equals(compute(resource).hash, hash);
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public byte[] getHash() {
+        return hash.clone();
+    }
+}
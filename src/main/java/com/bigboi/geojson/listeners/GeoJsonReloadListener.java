@@ -4,13 +4,28 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import com.bigboi.geojson.events.GeoJsonReloadEvent;
+import com.bigboi.geojson.services.LocationService;
+import com.bigboi.geojson.services.TileService;
 
 @Component
 public class GeoJsonReloadListener {
+    private final LocationService locationService;
+    private final TileService tileService;
+
+    public GeoJsonReloadListener(LocationService locationService, TileService tileService) {
+        this.locationService = locationService;
+        this.tileService = tileService;
+    }
 
     @EventListener
     public void handleGeoJsonReload(GeoJsonReloadEvent event) {
-
-        System.out.println("GeoJSON data has been reloaded");
+        // Lookups and tiles keep coming from the current regions until the rebuilt set is swapped in
+        event.setRebuild(locationService.reloadAsync().thenApply(published -> {
+            if (published) {
+                tileService.retireOldGenerations();
+            }
+            return published;
+        }));
+        System.out.println("GeoJSON data has been reloaded, rebuilding location index");
     }
 }
@@ -0,0 +1,41 @@
+package com.bigboi.geojson.metrics;
+
+import com.bigboi.geojson.index.InteriorGrid;
+import com.bigboi.geojson.index.RegionIndex;
+import com.bigboi.geojson.models.AdminRegion;
+import com.bigboi.geojson.models.CountryData;
+
+/**
+ * Size of one loaded country and a rough estimate of the memory it holds.
+ * Ordinates count at 16 bytes per vertex whether they are on or off heap.
+ * Property names are counted as codes only; the strings are shared.
+ */
+public record CountrySummary(String country, int regions, long vertices, int preparedRegions,
+        long locatorEntries, int gridNodes, long gridBytes, long propertyBytes, long heapEstimateBytes) {
+
+    private static final int BYTES_PER_VERTEX = 2 * Double.BYTES;
+    // Envelope, item boundable and a share of the tree nodes
+    private static final int STRTREE_BYTES_PER_REGION = 96;
+
+    public static CountrySummary of(CountryData country, RegionIndex index) {
+        long vertices = 0;
+        int prepared = 0;
+        long locatorEntries = 0;
+        long propertyBytes = 0;
+        for (AdminRegion region : country.getRegions()) {
+            vertices += region.getGeometry().getNumPoints();
+            propertyBytes += region.getPropertySizeBytes();
+            if (region.isPrepared()) {
+                prepared++;
+                locatorEntries += region.getIndexSize();
+            }
+        }
+        InteriorGrid grid = index.gridFor(country.getCountryCode());
+        int gridNodes = grid != null ? grid.getNodeCount() : 0;
+        long gridBytes = grid != null ? grid.getSizeBytes() : 0;
+        long heap = vertices * BYTES_PER_VERTEX + locatorEntries * Integer.BYTES + gridBytes + propertyBytes
+                + (long) country.getRegions().size() * STRTREE_BYTES_PER_REGION;
+        return new CountrySummary(country.getCountryCode(), country.getRegions().size(), vertices, prepared,
+                locatorEntries, gridNodes, gridBytes, propertyBytes, heap);
+    }
+}
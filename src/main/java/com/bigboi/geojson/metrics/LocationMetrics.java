@@ -0,0 +1,166 @@
+package com.bigboi.geojson.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.models.LoadReport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters for the lookup, load and download paths. Per-country meters are
+ * created once and kept, so recording a lookup does not go through the
+ * registry.
+ */
+@Component
+public class LocationMetrics {
+    private final MeterRegistry registry;
+    private final Timer lookupHit;
+    private final Timer lookupMiss;
+    private final DistributionSummary candidates;
+    private final Timer nearestFound;
+    private final Timer nearestNone;
+    private final Map<String, CountryMeters> countries = new ConcurrentHashMap<>();
+    private final Timer reloadSuccess;
+    private final Timer reloadFailure;
+    private final MultiGauge countryHeap;
+    private final Counter downloadBytes;
+    private final AtomicLong lastDownloadRate = new AtomicLong();
+
+    public LocationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.lookupHit = lookupTimer("hit");
+        this.lookupMiss = lookupTimer("miss");
+        this.candidates = DistributionSummary.builder("location.lookup.candidates")
+                .description("Regions tested exactly per lookup")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.nearestFound = nearestTimer("found");
+        this.nearestNone = nearestTimer("none");
+        this.reloadSuccess = reloadTimer("success");
+        this.reloadFailure = reloadTimer("failure");
+        this.countryHeap = MultiGauge.builder("location.country.heap.estimate")
+                .description("Estimated memory held by a country's regions and indexes")
+                .baseUnit("bytes")
+                .register(registry);
+        this.downloadBytes = Counter.builder("location.download.bytes")
+                .description("Bytes received from the GADM mirror")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("location.download.rate", lastDownloadRate, AtomicLong::get)
+                .description("Throughput of the last download run")
+                .baseUnit("bytes.per.second")
+                .register(registry);
+    }
+
+    private Timer lookupTimer(String outcome) {
+        return Timer.builder("location.lookup")
+                .description("findLocation latency")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer nearestTimer(String outcome) {
+        return Timer.builder("location.lookup.nearest")
+                .description("Nearest-region searches after a miss")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Timer reloadTimer(String outcome) {
+        return Timer.builder("location.reload")
+                .description("Time to rebuild and publish the region dataset")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * One lookup: {@code country} is where it was resolved, or {@code null}
+     * for a miss.
+     */
+    public void recordLookup(long nanos, int candidatesTested, String country) {
+        (country != null ? lookupHit : lookupMiss).record(nanos, TimeUnit.NANOSECONDS);
+        candidates.record(candidatesTested);
+        if (country != null) {
+            country(country).latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordNearest(long nanos, boolean found) {
+        (found ? nearestFound : nearestNone).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** A country picked by the footprint index was tested; {@code hit} if one of its regions matched. */
+    public void recordCountryTested(String country, boolean hit) {
+        CountryMeters meters = country(country);
+        (hit ? meters.hits : meters.misses).increment();
+    }
+
+    private CountryMeters country(String country) {
+        return countries.computeIfAbsent(country, code -> new CountryMeters(registry, code));
+    }
+
+    public void recordLoad(LoadReport report) {
+        Timer.builder("location.load.file")
+                .description("Time to load one country file")
+                .tags("country", report.getCountryCode(),
+                        "source", report.isSnapshot() ? "snapshot" : "json",
+                        "outcome", report.isFailed() ? "failure" : "success")
+                .register(registry)
+                .record(report.getMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordReload(long nanos, boolean success) {
+        (success ? reloadSuccess : reloadFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Replaces the per-country heap estimates with those of the dataset just published. */
+    public void updateHeapEstimates(Map<String, Long> bytesByCountry) {
+        List<MultiGauge.Row<?>> rows = bytesByCountry.entrySet().stream()
+                .<MultiGauge.Row<?>>map(entry -> MultiGauge.Row.of(Tags.of("country", entry.getKey()),
+                        entry.getValue()))
+                .toList();
+        countryHeap.register(rows, true);
+    }
+
+    public void recordDownload(long bytes) {
+        downloadBytes.increment(bytes);
+    }
+
+    public void recordDownloadRun(long bytes, long millis) {
+        lastDownloadRate.set(bytes * 1000 / Math.max(millis, 1));
+    }
+
+    private static class CountryMeters {
+        final Timer latency;
+        final Counter hits;
+        final Counter misses;
+
+        CountryMeters(MeterRegistry registry, String country) {
+            this.latency = Timer.builder("location.lookup.country")
+                    .description("findLocation latency of lookups resolved in a country")
+                    .tag("country", country)
+                    .register(registry);
+            this.hits = Counter.builder("location.lookup.country.tests")
+                    .description("Countries tested per lookup, by whether a region matched")
+                    .tags("country", country, "outcome", "hit")
+                    .register(registry);
+            this.misses = Counter.builder("location.lookup.country.tests")
+                    .description("Countries tested per lookup, by whether a region matched")
+                    .tags("country", country, "outcome", "miss")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bigboi.geojson.metrics;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.index.RegionDataset;
+import com.bigboi.geojson.models.CountryData;
+import com.bigboi.geojson.models.PropertyDictionary;
+import com.bigboi.geojson.services.LocationService;
+
+/** {@code /actuator/regions}: what is loaded per country, largest first. */
+@Component
+@Endpoint(id = "regions")
+public class RegionsEndpoint {
+    private final LocationService locationService;
+
+    public RegionsEndpoint(LocationService locationService) {
+        this.locationService = locationService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> regions() {
+        RegionDataset dataset = locationService.getDataset();
+        List<CountrySummary> countries = dataset.getCountries().values().stream()
+                .map(country -> CountrySummary.of(country, dataset.getIndex()))
+                .sorted(Comparator.comparingLong(CountrySummary::heapEstimateBytes).reversed())
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("generation", dataset.getGeneration());
+        result.put("countries", countries.size());
+        result.put("regions", countries.stream().mapToInt(CountrySummary::regions).sum());
+        result.put("vertices", countries.stream().mapToLong(CountrySummary::vertices).sum());
+        result.put("countryIndexEntries", dataset.getIndex().getCountryIndexSize());
+        result.put("propertyStrings", PropertyDictionary.shared().size());
+        result.put("heapEstimateBytes", countries.stream().mapToLong(CountrySummary::heapEstimateBytes).sum());
+        Map<Integer, Integer> levelRegions = new TreeMap<>();
+        dataset.getLevelIndexes().forEach((level, index) -> levelRegions.put(level, index.getRegionCount()));
+        result.put("indexedLevels", levelRegions);
+        result.put("byCountry", countries);
+        return result;
+    }
+
+    @ReadOperation
+    public CountrySummary country(@Selector String country) {
+        RegionDataset dataset = locationService.getDataset();
+        CountryData data = dataset.getCountries().get(country.toUpperCase());
+        return data != null ? CountrySummary.of(data, dataset.getIndex()) : null;
+    }
+}
@@ -1,30 +1,326 @@
 package com.bigboi.geojson.models;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.TreeMap;
 
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Location;
 import org.locationtech.jts.geom.MultiPolygon;
 
+import com.bigboi.geojson.geometry.BandedPointInAreaLocator;
+
 public class AdminRegion {
+    /** GADM levels run from 0 (country) to 5. */
+    public static final int MAX_LEVEL = 5;
+
+    private final String countryCode;
     private final MultiPolygon geometry;
-    private final Map<String, String> properties;
-    private final Map<String, Object> originalProperties;
+    // Envelope of the full-resolution geometry, which covers the simplified one
+    private final Envelope envelope;
+    // Sorted by key and unmodifiable, so it can be handed out without copying
+    private final CompactProperties properties;
+    // The complete feature properties are only read back on request
+    private final PropertySource originalProperties;
+    // Lookup response, built on the first lookup that lands here
+    private volatile RegionResult result;
+    // Responses cut down to a coarser level, by level
+    private volatile RegionResult[] levelResults;
+    // Banded segment index over the rings, built on first use or by prepare()
+    private volatile BandedPointInAreaLocator locator;
+
+    // Set when geometry is a simplification within tolerance of the original
+    private final double tolerance;
+    private final int fullVertexCount;
+    private final GeometrySource fullGeometry;
+    private final SimplificationStats stats;
+    private volatile SoftReference<BandedPointInAreaLocator> fullLocator;
+
+    /** Loads the full-resolution geometry of a simplified region. */
+    @FunctionalInterface
+    public interface GeometrySource {
+        MultiPolygon load() throws IOException;
+    }
+
+    /** Loads the complete properties of the feature a region was read from. */
+    @FunctionalInterface
+    public interface PropertySource {
+        Map<String, Object> load() throws IOException;
+    }
 
-    public AdminRegion(MultiPolygon geometry, Map<String, String> properties, Map<String, Object> originalProperties) {
+    public AdminRegion(String countryCode, MultiPolygon geometry, Map<String, String> properties) {
+        this(countryCode, geometry, geometry.getEnvelopeInternal(),
+                CompactProperties.of(properties, PropertyDictionary.shared()), null, 0, geometry.getNumPoints(),
+                null, null);
+    }
+
+    private AdminRegion(String countryCode, MultiPolygon geometry, Envelope envelope, CompactProperties properties,
+            PropertySource originalProperties, double tolerance, int fullVertexCount, GeometrySource fullGeometry,
+            SimplificationStats stats) {
+        this.countryCode = countryCode;
         this.geometry = geometry;
+        this.envelope = envelope;
         this.properties = properties;
         this.originalProperties = originalProperties;
+        this.tolerance = tolerance;
+        this.fullVertexCount = fullVertexCount;
+        this.fullGeometry = fullGeometry;
+        this.stats = stats;
+    }
+
+    /**
+     * The same region answered from {@code simplified}, which must lie within
+     * {@code tolerance} of this region's geometry. Points closer than that to
+     * the simplified boundary are tested against the geometry from
+     * {@code fullGeometry}; without one the simplified answer is used.
+     */
+    public AdminRegion simplified(MultiPolygon simplified, double tolerance, GeometrySource fullGeometry,
+            SimplificationStats stats) {
+        return new AdminRegion(countryCode, simplified, envelope, properties, originalProperties, tolerance,
+                fullVertexCount, fullGeometry, stats);
+    }
+
+    /** The same region, with its complete feature properties available from {@code source}. */
+    public AdminRegion withOriginalProperties(PropertySource source) {
+        return new AdminRegion(countryCode, geometry, envelope, properties, source, tolerance, fullVertexCount,
+                fullGeometry, stats);
+    }
+
+    public String getCountryCode() {
+        return countryCode;
     }
 
     public MultiPolygon getGeometry() {
         return geometry;
     }
 
+    /** Bounds of the region at full resolution, for spatial indexes. */
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    public boolean isSimplified() {
+        return tolerance > 0;
+    }
+
+    public int getFullVertexCount() {
+        return fullVertexCount;
+    }
+
+    /**
+     * Same answer as {@code getGeometry().contains(point)} but answered by the
+     * cached locator, so no relate matrix is computed per call.
+     */
+    public boolean contains(Coordinate point) {
+        return contains(point.x, point.y);
+    }
+
+    /** {@link #contains(Coordinate)} for the point {@code (x, y)}, without allocating. */
+    public boolean contains(double x, double y) {
+        if (!envelope.contains(x, y)) {
+            return false;
+        }
+        if (tolerance == 0) {
+            return getLocator().locate(x, y) == Location.INTERIOR;
+        }
+
+        long start = System.nanoTime();
+        BandedPointInAreaLocator simple = getLocator();
+        BandedPointInAreaLocator full = simple.isNear(x, y, tolerance) ? getFullLocator() : null;
+        if (full == null) {
+            boolean inside = simple.locate(x, y) == Location.INTERIOR;
+            stats.recordSimplified(System.nanoTime() - start);
+            return inside;
+        }
+        boolean inside = full.locate(x, y) == Location.INTERIOR;
+        stats.recordFull(System.nanoTime() - start);
+        return inside;
+    }
+
+    /**
+     * Distance from the point to the boundary of this region as loaded, with
+     * x differences scaled by {@code xScale}, or infinity when farther than
+     * {@code maxDistance}; see {@link BandedPointInAreaLocator#distance}.
+     * Meant for points outside it.
+     */
+    public double distance(double x, double y, double xScale, double maxDistance) {
+        return getLocator().distance(x, y, xScale, maxDistance);
+    }
+
+    /** Whether the whole rectangle is inside this region, away from its boundary. */
+    public boolean containsRectangle(Envelope rectangle) {
+        if (!envelope.contains(rectangle)) {
+            return false;
+        }
+        if (tolerance == 0) {
+            return getLocator().containsRectangle(rectangle);
+        }
+        // Inside the simplified shape by more than the tolerance means inside the original
+        Envelope grown = new Envelope(rectangle);
+        grown.expandBy(tolerance);
+        return getLocator().containsRectangle(grown);
+    }
+
+    public void prepare() {
+        getLocator();
+    }
+
+    public boolean isPrepared() {
+        return locator != null;
+    }
+
+    /** Entries in the point-in-polygon index, 0 until it is built. */
+    public int getIndexSize() {
+        BandedPointInAreaLocator result = locator;
+        return result != null ? result.getIndexSize() : 0;
+    }
+
+    private BandedPointInAreaLocator getLocator() {
+        BandedPointInAreaLocator result = locator;
+        if (result == null) {
+            synchronized (this) {
+                result = locator;
+                if (result == null) {
+                    result = createLocator();
+                    locator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private BandedPointInAreaLocator createLocator() {
+        return new BandedPointInAreaLocator(geometry);
+    }
+
+    /**
+     * The full-resolution locator, kept only softly so the collector can drop
+     * it again under memory pressure. {@code null} if it cannot be loaded.
+     */
+    private BandedPointInAreaLocator getFullLocator() {
+        if (fullGeometry == null) {
+            return null;
+        }
+        SoftReference<BandedPointInAreaLocator> reference = fullLocator;
+        BandedPointInAreaLocator result = reference != null ? reference.get() : null;
+        if (result == null) {
+            synchronized (this) {
+                reference = fullLocator;
+                result = reference != null ? reference.get() : null;
+                if (result == null) {
+                    try {
+                        result = new BandedPointInAreaLocator(fullGeometry.load());
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Error loading full geometry for " + countryCode + ": " + e.getMessage());
+                        return null;
+                    }
+                    stats.recordFullLoad();
+                    fullLocator = new SoftReference<>(result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Admin level names sorted by key. Unmodifiable. */
     public Map<String, String> getProperties() {
-        return new TreeMap<>(properties);
+        return properties;
+    }
+
+    /** Finest GADM level named in the properties, 0 when only the country is. */
+    public int getLevel() {
+        int level = 0;
+        for (String key : properties.keySet()) {
+            level = Math.max(level, levelOfKey(key));
+        }
+        return level;
+    }
+
+    /**
+     * The GADM level a property key names: 0 for {@code country}, k for
+     * {@code level_k}, -1 for anything else.
+     */
+    public static int levelOfKey(String key) {
+        if ("country".equals(key)) {
+            return 0;
+        }
+        if (key.startsWith("level_")) {
+            try {
+                return Integer.parseInt(key.substring("level_".length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /** The properties naming levels 0 to {@code level}, in key order. */
+    public static Map<String, String> propertiesToLevel(Map<String, String> properties, int level) {
+        Map<String, String> result = new LinkedHashMap<>();
+        properties.forEach((key, value) -> {
+            int keyLevel = levelOfKey(key);
+            if (keyLevel >= 0 && keyLevel <= level) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The lookup response naming only levels up to {@code level}, which is
+     * the correct answer at that level since GADM levels nest. A negative
+     * level, or one at least as fine as this region's, gives
+     * {@link #getResult()}.
+     */
+    public RegionResult getResult(int level) {
+        if (level < 0 || level >= MAX_LEVEL) {
+            return getResult();
+        }
+        RegionResult[] cached = levelResults;
+        if (cached == null) {
+            cached = new RegionResult[MAX_LEVEL];
+            levelResults = cached;
+        }
+        RegionResult levelResult = cached[level];
+        if (levelResult == null) {
+            Map<String, String> truncated = propertiesToLevel(properties, level);
+            levelResult = truncated.size() == properties.size() ? getResult()
+                    : RegionResult.of(countryCode, CompactProperties.of(truncated, PropertyDictionary.shared()));
+            cached[level] = levelResult;
+        }
+        return levelResult;
+    }
+
+    /** The lookup response for this region, shared by every lookup that finds it. */
+    public RegionResult getResult() {
+        RegionResult cached = result;
+        if (cached == null) {
+            cached = RegionResult.of(countryCode, properties);
+            result = cached;
+        }
+        return cached;
+    }
+
+    /** Heap held by the admin level names of this region, excluding the shared strings. */
+    public int getPropertySizeBytes() {
+        return properties.getSizeBytes();
     }
 
+    /**
+     * The complete properties of the source feature, read back from the
+     * snapshot or source file on every call; empty if they cannot be read.
+     */
     public Map<String, Object> getOriginalProperties() {
-        return originalProperties;
+        if (originalProperties == null) {
+            return Map.of();
+        }
+        try {
+            return originalProperties.load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading properties for " + countryCode + ": " + e.getMessage());
+            return Map.of();
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.bigboi.geojson.models;
+
+import lombok.Value;
+
+/** Outcome of tagging one file with regions. */
+@Value
+public class BulkGeocodeReport {
+    long rows;
+    long matched;
+    /** Rows whose coordinates were missing, not numbers or off the globe; written with empty region columns. */
+    long invalid;
+    long millis;
+    /** Highest heap use seen while the file was processed, summed over the heap pools. */
+    long peakHeapBytes;
+
+    public long getRowsPerSecond() {
+        return rows * 1000 / Math.max(millis, 1);
+    }
+}
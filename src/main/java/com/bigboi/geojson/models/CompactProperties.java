@@ -0,0 +1,101 @@
+package com.bigboi.geojson.models;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Unmodifiable string map stored as dictionary codes: one {@code int} per key
+ * and one per value, sorted by key. A region's handful of admin level names
+ * costs a single small array instead of a hash map with its entries.
+ */
+public final class CompactProperties extends AbstractMap<String, String> {
+    private static final CompactProperties EMPTY = new CompactProperties(PropertyDictionary.shared(), new int[0]);
+
+    private final PropertyDictionary dictionary;
+    // Key and value codes, alternating
+    private final int[] codes;
+
+    private CompactProperties(PropertyDictionary dictionary, int[] codes) {
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    public static CompactProperties of(Map<String, String> properties, PropertyDictionary dictionary) {
+        if (properties instanceof CompactProperties compact && compact.dictionary == dictionary) {
+            return compact;
+        }
+        if (properties.isEmpty()) {
+            return EMPTY;
+        }
+        int[] codes = new int[properties.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : new TreeMap<>(properties).entrySet()) {
+            codes[i++] = dictionary.encode(entry.getKey());
+            codes[i++] = dictionary.encode(entry.getValue());
+        }
+        return new CompactProperties(dictionary, codes);
+    }
+
+    @Override
+    public int size() {
+        return codes.length / 2;
+    }
+
+    @Override
+    public String get(Object key) {
+        for (int i = 0; i < codes.length; i += 2) {
+            if (dictionary.decode(codes[i]).equals(key)) {
+                return dictionary.decode(codes[i + 1]);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return codes.length / 2;
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < codes.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (next >= codes.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, String> entry = new SimpleImmutableEntry<>(dictionary.decode(codes[next]),
+                                dictionary.decode(codes[next + 1]));
+                        next += 2;
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+    /** Heap held by this map itself; the strings are shared through the dictionary. */
+    public int getSizeBytes() {
+        return 16 + 16 + codes.length * Integer.BYTES;
+    }
+}
@@ -1,23 +1,129 @@
 package com.bigboi.geojson.models;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
+/**
+ * Where a country's regions are. Besides the overall box it keeps a coarse
+ * footprint: the grid cells touched by the envelope of each polygon, so
+ * countries with overseas territories or spanning the antimeridian don't
+ * claim the empty space in between.
+ */
 public class CountryBounds {
-    private double minLat = Double.MAX_VALUE;
-    private double maxLat = Double.MIN_VALUE;
-    private double minLon = Double.MAX_VALUE;
-    private double maxLon = Double.MIN_VALUE;
+    public static final double DEFAULT_CELL_SIZE = 1.0;
+
+    private double minLat = Double.POSITIVE_INFINITY;
+    private double maxLat = Double.NEGATIVE_INFINITY;
+    private double minLon = Double.POSITIVE_INFINITY;
+    private double maxLon = Double.NEGATIVE_INFINITY;
+    private final double cellSize;
+    private final int columns;
+    private final Set<Long> cells = new HashSet<>();
+
+    public CountryBounds() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public CountryBounds(double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize) + 1;
+    }
 
     public void updateBounds(Geometry geometry) {
         Envelope envelope = geometry.getEnvelopeInternal();
+        if (envelope.isNull()) {
+            return;
+        }
         minLat = Math.min(minLat, envelope.getMinY());
         maxLat = Math.max(maxLat, envelope.getMaxY());
         minLon = Math.min(minLon, envelope.getMinX());
         maxLon = Math.max(maxLon, envelope.getMaxX());
+
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            addCells(geometry.getGeometryN(i).getEnvelopeInternal());
+        }
+    }
+
+    private void addCells(Envelope envelope) {
+        if (envelope.isNull()) {
+            return;
+        }
+        int fromRow = row(envelope.getMinY());
+        int toRow = row(envelope.getMaxY());
+        int fromColumn = column(envelope.getMinX());
+        int toColumn = column(envelope.getMaxX());
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                cells.add((long) r * columns + c);
+            }
+        }
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((lat + 90) / cellSize);
+    }
+
+    private int column(double lon) {
+        return (int) Math.floor((lon + 180) / cellSize);
     }
 
     public boolean containsPoint(double lat, double lon) {
-        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon
+                && cells.contains((long) row(lat) * columns + column(lon));
+    }
+
+    public Envelope getEnvelope() {
+        return minLat > maxLat ? new Envelope() : new Envelope(minLon, maxLon, minLat, maxLat);
+    }
+
+    /**
+     * The footprint as a few envelopes: runs of adjacent cells within a row,
+     * clipped to the overall box.
+     */
+    public List<Envelope> getFootprint() {
+        TreeMap<Integer, TreeSet<Integer>> rows = new TreeMap<>();
+        for (long cell : cells) {
+            rows.computeIfAbsent((int) (cell / columns), r -> new TreeSet<>()).add((int) (cell % columns));
+        }
+
+        Envelope bounds = getEnvelope();
+        List<Envelope> footprint = new ArrayList<>();
+        rows.forEach((row, rowColumns) -> {
+            int runStart = -1;
+            int previous = -2;
+            for (int column : rowColumns) {
+                if (column != previous + 1) {
+                    addRun(footprint, bounds, row, runStart, previous);
+                    runStart = column;
+                }
+                previous = column;
+            }
+            addRun(footprint, bounds, row, runStart, previous);
+        });
+        return footprint;
+    }
+
+    private void addRun(List<Envelope> footprint, Envelope bounds, int row, int fromColumn, int toColumn) {
+        if (fromColumn < 0) {
+            return;
+        }
+        Envelope run = new Envelope(
+                fromColumn * cellSize - 180, (toColumn + 1) * cellSize - 180,
+                row * cellSize - 90, (row + 1) * cellSize - 90);
+        Envelope clipped = run.intersection(bounds);
+        if (!clipped.isNull()) {
+            footprint.add(clipped);
+        }
+    }
+
+    public int getCellCount() {
+        return cells.size();
     }
 }
@@ -0,0 +1,35 @@
+package com.bigboi.geojson.models;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+
+import com.bigboi.geojson.io.SourceFingerprint;
+
+import lombok.Value;
+
+/** Everything loaded from one country file. Immutable once built. */
+@Value
+public class CountryData {
+    String countryCode;
+    String sourceName;
+    /** GADM level of the regions, from the file name; -1 when the name does not say. */
+    int level;
+    List<AdminRegion> regions;
+    CountryBounds bounds;
+    /** Contents the regions were parsed from, {@code null} if they could not be fingerprinted. */
+    SourceFingerprint fingerprint;
+
+    /** Whether {@code resource} is the same file, with the same contents, these regions came from. */
+    public boolean isCurrent(Resource resource) {
+        if (fingerprint == null || !sourceName.equals(resource.getFilename())) {
+            return false;
+        }
+        try {
+            return fingerprint.matches(resource);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bigboi.geojson.models;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Value;
+
+/**
+ * A raw GeoJSON file available for download, with the precompressed variants
+ * ready for it. Only metadata is kept; the contents are
+ * streamed from disk on request.
+ */
+@Value
+public class GeoJsonFile {
+    String name;
+    long size;
+    long lastModified;
+    /** Size of the gzip variant, or -1 when there is none. */
+    long gzipSize;
+    boolean brotli;
+    @JsonIgnore
+    Path path;
+    @JsonIgnore
+    Path gzipPath;
+    @JsonIgnore
+    Path brotliPath;
+
+    /** Strong validator of the uncompressed file; variants append their encoding. */
+    @JsonIgnore
+    public String getEtag() {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+}
@@ -0,0 +1,20 @@
+package com.bigboi.geojson.models;
+
+import lombok.Value;
+
+/** Outcome of loading a single GeoJSON file. */
+@Value
+public class LoadReport {
+    String fileName;
+    String countryCode;
+    int regions;
+    long bytes;
+    long millis;
+    /** Whether the regions came from a binary snapshot instead of the JSON. */
+    boolean snapshot;
+    String error;
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.bigboi.geojson.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for location lookups. Every lookup records how many
+ * countries and candidate regions the spatial index handed back and had to be
+ * tested, so the distribution can be compared as more countries are loaded.
+ */
+public class LookupStats {
+    private static final int BUCKETS = 12;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder countriesTested = new LongAdder();
+    private final LongAdder candidatesTested = new LongAdder();
+    private final AtomicLong maxCandidates = new AtomicLong();
+    private final LongAdder nearestFound = new LongAdder();
+    private final LongAdder nearestNone = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final SimplificationStats simplification = new SimplificationStats();
+
+    public void record(int countries, int candidates, boolean found) {
+        lookups.increment();
+        if (!found) {
+            misses.increment();
+        }
+        countriesTested.add(countries);
+        candidatesTested.add(candidates);
+        maxCandidates.accumulateAndGet(candidates, Math::max);
+        histogram.incrementAndGet(bucketOf(candidates));
+    }
+
+    /** A miss answered by the nearest-region search; {@code found} if a region was in range. */
+    public void recordNearest(boolean found) {
+        (found ? nearestFound : nearestNone).increment();
+    }
+
+    private static int bucketOf(int candidates) {
+        // 0, 1, 2-3, 4-7, ... with everything past the last bucket folded into it
+        int bucket = 32 - Integer.numberOfLeadingZeros(candidates);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCountriesTested() {
+        return countriesTested.sum();
+    }
+
+    public double getAverageCountries() {
+        long count = lookups.sum();
+        return count == 0 ? 0 : (double) countriesTested.sum() / count;
+    }
+
+    public long getCandidatesTested() {
+        return candidatesTested.sum();
+    }
+
+    public long getMaxCandidates() {
+        return maxCandidates.get();
+    }
+
+    public double getAverageCandidates() {
+        long count = lookups.sum();
+        return count == 0 ? 0 : (double) candidatesTested.sum() / count;
+    }
+
+    public long getNearestFound() {
+        return nearestFound.sum();
+    }
+
+    public long getNearestNone() {
+        return nearestNone.sum();
+    }
+
+    public SimplificationStats getSimplification() {
+        return simplification;
+    }
+
+    public Map<String, Long> getCandidatesHistogram() {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long low = i == 0 ? 0 : 1L << (i - 1);
+            long high = (1L << i) - 1;
+            String label;
+            if (i == BUCKETS - 1) {
+                label = low + "+";
+            } else if (low == high) {
+                label = String.valueOf(low);
+            } else {
+                label = low + "-" + high;
+            }
+            buckets.put(label, histogram.get(i));
+        }
+        return buckets;
+    }
+}
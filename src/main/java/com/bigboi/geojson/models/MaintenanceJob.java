@@ -0,0 +1,74 @@
+package com.bigboi.geojson.models;
+
+import java.time.Instant;
+
+/**
+ * A download or reload running in the background, polled through
+ * {@code /api/jobs/{id}}. Updated by the job thread, read by anyone.
+ */
+public class MaintenanceJob {
+    public enum Type {
+        FETCH, RELOAD, PRESEED
+    }
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final Type type;
+    private final Instant submitted = Instant.now();
+    private volatile State state = State.QUEUED;
+    private volatile Instant started;
+    private volatile Instant finished;
+    private volatile String message;
+
+    public MaintenanceJob(String id, Type type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public void markRunning() {
+        started = Instant.now();
+        state = State.RUNNING;
+    }
+
+    public void markFinished(boolean succeeded, String message) {
+        this.message = message;
+        finished = Instant.now();
+        state = succeeded ? State.SUCCEEDED : State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isDone() {
+        State current = state;
+        return current == State.SUCCEEDED || current == State.FAILED;
+    }
+
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    public Instant getFinished() {
+        return finished;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bigboi.geojson.models;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every distinct property key and value an {@code int} code, so the
+ * same country or province name repeated across thousands of regions is held
+ * once. Codes are never reassigned; strings of countries that are reloaded
+ * or removed stay in the dictionary, which is small next to the regions.
+ * Safe for concurrent use by the loader threads.
+ */
+public final class PropertyDictionary {
+    private static final PropertyDictionary SHARED = new PropertyDictionary();
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Published after every append; a code obtained from codes is always in range
+    private volatile String[] strings = new String[1024];
+    private int size;
+
+    /** The dictionary regions encode their properties with. */
+    public static PropertyDictionary shared() {
+        return SHARED;
+    }
+
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = strings;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        strings = current;
+        codes.put(value, size);
+        return size++;
+    }
+
+    public String decode(int code) {
+        return strings[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
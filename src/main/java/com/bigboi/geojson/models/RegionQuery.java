@@ -0,0 +1,35 @@
+package com.bigboi.geojson.models;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Data;
+
+/** Body of {@code /api/regions/query}: the area, given as either field, and how to page and shape the answer. */
+@Data
+public class RegionQuery {
+    public enum GeometryOutput {
+        /** Properties only. */
+        NONE,
+        /** The whole region, as indexed. */
+        FULL,
+        /** The part of the region inside the area. */
+        CLIPPED
+    }
+
+    /** [minLongitude, minLatitude, maxLongitude, maxLatitude]. */
+    private List<Double> bbox;
+    /** A GeoJSON Polygon or MultiPolygon, or a Feature holding one. */
+    private JsonNode area;
+    private GeometryOutput geometry = GeometryOutput.NONE;
+    /** Tolerance in degrees to simplify returned geometry with, 0 for none. */
+    private double simplify = 0;
+    /** Admin level of the regions to return; needs an index of its own. Finest loaded when absent. */
+    private Integer level;
+    private int offset = 0;
+    /** Regions per page; the configured default when absent. */
+    private Integer limit;
+    /** Generation the offset of a following page refers to, as returned with the previous page. */
+    private Long generation;
+}
@@ -0,0 +1,110 @@
+package com.bigboi.geojson.models;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * The lookup response for one region, built once and shared by every lookup
+ * that lands in it: an immutable map for callers working with objects, and
+ * the same document already encoded as JSON for writing straight to a
+ * response.
+ */
+public final class RegionResult {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Map<String, Object> map;
+    private final Map<String, String> properties;
+    private final SerializedString json;
+
+    private RegionResult(Map<String, Object> map, Map<String, String> properties, SerializedString json) {
+        this.map = map;
+        this.properties = properties;
+        this.json = json;
+    }
+
+    static RegionResult of(String countryCode, Map<String, String> properties) {
+        Map<String, Object> map = new LinkedHashMap<>(4);
+        map.put("country", countryCode);
+        map.put("levelsCount", properties.size());
+        map.put("properties", properties);
+        return new RegionResult(Collections.unmodifiableMap(map), properties,
+                new SerializedString(encode(countryCode, properties)));
+    }
+
+    private static String encode(String countryCode, Map<String, String> properties) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("country", countryCode);
+            generator.writeNumberField("levelsCount", properties.size());
+            generator.writeObjectFieldStart("properties");
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * This result for a point outside the region, {@code meters} from it:
+     * the same document with a {@code distanceMeters} field added.
+     */
+    public RegionResult withDistance(double meters) {
+        double rounded = Math.round(meters * 10) / 10.0;
+        return withField("distanceMeters", rounded, Double.toString(rounded));
+    }
+
+    /**
+     * This result with the complete properties of the source feature added as
+     * {@code originalProperties}, given both as read and already encoded.
+     */
+    public RegionResult withOriginalProperties(Map<String, Object> original, String encoded) {
+        return withField("originalProperties", original, encoded);
+    }
+
+    private RegionResult withField(String name, Object value, String encodedValue) {
+        Map<String, Object> copy = new LinkedHashMap<>(map);
+        copy.put(name, value);
+        String text = json.getValue();
+        String encoded = text.substring(0, text.length() - 1) + ",\"" + name + "\":" + encodedValue + "}";
+        return new RegionResult(Collections.unmodifiableMap(copy), properties, new SerializedString(encoded));
+    }
+
+    /** Unmodifiable; the {@code properties} entry is unmodifiable too. */
+    public Map<String, Object> getMap() {
+        return map;
+    }
+
+    /** ISO code of the region's country. */
+    public String getCountryCode() {
+        return (String) map.get("country");
+    }
+
+    /** The admin level names, the same map as the {@code properties} entry. */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /** The encoded document as UTF-8. Shared between calls, so must not be modified. */
+    public byte[] getJson() {
+        return json.asUnquotedUTF8();
+    }
+
+    /** The encoded document for {@link JsonGenerator#writeRawValue(SerializableString)}. */
+    public SerializableString getSerialized() {
+        return json;
+    }
+}
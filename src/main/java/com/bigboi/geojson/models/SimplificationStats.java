@@ -0,0 +1,85 @@
+package com.bigboi.geojson.models;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of each tier when regions are simplified: point tests answered by the
+ * simplified geometry alone, and those close enough to its boundary to need
+ * the full-resolution geometry, with the vertices each tier keeps.
+ */
+public class SimplificationStats {
+    private static final int BYTES_PER_VERTEX = 2 * Double.BYTES;
+
+    private final LongAdder simplifiedTests = new LongAdder();
+    private final LongAdder simplifiedNanos = new LongAdder();
+    private final LongAdder fullTests = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder fullLoads = new LongAdder();
+    private volatile double tolerance;
+    private volatile long fullVertices;
+    private volatile long simplifiedVertices;
+
+    public void recordSimplified(long nanos) {
+        simplifiedTests.increment();
+        simplifiedNanos.add(nanos);
+    }
+
+    public void recordFull(long nanos) {
+        fullTests.increment();
+        fullNanos.add(nanos);
+    }
+
+    /** A full-resolution geometry was read back from its snapshot. */
+    public void recordFullLoad() {
+        fullLoads.increment();
+    }
+
+    public void setVertexCounts(double tolerance, long fullVertices, long simplifiedVertices) {
+        this.tolerance = tolerance;
+        this.fullVertices = fullVertices;
+        this.simplifiedVertices = simplifiedVertices;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public long getSimplifiedTests() {
+        return simplifiedTests.sum();
+    }
+
+    public double getSimplifiedAverageNanos() {
+        long count = simplifiedTests.sum();
+        return count == 0 ? 0 : (double) simplifiedNanos.sum() / count;
+    }
+
+    public long getFullTests() {
+        return fullTests.sum();
+    }
+
+    public double getFullAverageNanos() {
+        long count = fullTests.sum();
+        return count == 0 ? 0 : (double) fullNanos.sum() / count;
+    }
+
+    public long getFullLoads() {
+        return fullLoads.sum();
+    }
+
+    public long getFullVertices() {
+        return fullVertices;
+    }
+
+    public long getSimplifiedVertices() {
+        return simplifiedVertices;
+    }
+
+    /** Ordinate bytes of the full-resolution tier, held on disk rather than in memory when simplified. */
+    public long getFullVertexBytes() {
+        return fullVertices * BYTES_PER_VERTEX;
+    }
+
+    public long getSimplifiedVertexBytes() {
+        return simplifiedVertices * BYTES_PER_VERTEX;
+    }
+}
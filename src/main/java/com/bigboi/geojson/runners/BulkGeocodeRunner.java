@@ -0,0 +1,70 @@
+package com.bigboi.geojson.runners;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.BulkGeocodeReport;
+import com.bigboi.geojson.services.BulkGeocodeService;
+
+/**
+ * Bulk mode: with {@code app.location.bulk.input} set, tags that file once
+ * the regions are loaded. Run it without the web server, e.g.
+ * {@code java -jar geojson.jar --spring.main.web-application-type=none
+ * --app.location.bulk.input=points.csv.gz}.
+ */
+@Component
+public class BulkGeocodeRunner implements ApplicationRunner {
+    private final BulkGeocodeService bulkGeocodeService;
+    private final LocationProperties.Bulk settings;
+    private final ConfigurableApplicationContext context;
+
+    public BulkGeocodeRunner(BulkGeocodeService bulkGeocodeService, LocationProperties properties,
+            ConfigurableApplicationContext context) {
+        this.bulkGeocodeService = bulkGeocodeService;
+        this.settings = properties.getBulk();
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (settings.getInput().isBlank()) {
+            return;
+        }
+        Path input = Paths.get(settings.getInput());
+        Path output = settings.getOutput().isBlank() ? defaultOutput(input) : Paths.get(settings.getOutput());
+
+        int exitCode = 0;
+        try {
+            System.out.println("Tagging " + input + " with regions into " + output);
+            BulkGeocodeReport report = bulkGeocodeService.geocode(input, output);
+            System.out.println("Tagged " + report.getRows() + " rows in " + report.getMillis() + " ms ("
+                    + report.getRowsPerSecond() + " rows/s): " + report.getMatched() + " matched, "
+                    + report.getInvalid() + " without valid coordinates; peak heap "
+                    + (report.getPeakHeapBytes() >> 20) + " MB of " + (Runtime.getRuntime().maxMemory() >> 20)
+                    + " MB");
+        } catch (Exception e) {
+            System.err.println("Bulk tagging of " + input + " failed: " + e.getMessage());
+            exitCode = 1;
+        }
+
+        if (settings.isExitWhenDone()) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+
+    /** points.csv.gz becomes points.regions.csv.gz next to it. */
+    private static Path defaultOutput(Path input) {
+        String name = input.getFileName().toString();
+        int dot = name.indexOf('.');
+        String target = dot > 0 ? name.substring(0, dot) + ".regions" + name.substring(dot) : name + ".regions";
+        return input.resolveSibling(target);
+    }
+}
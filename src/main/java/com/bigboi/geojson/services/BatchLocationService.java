@@ -0,0 +1,241 @@
+package com.bigboi.geojson.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.Coordinate;
+import com.bigboi.geojson.models.RegionResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Resolves many coordinates per request. Input is handled in chunks: each
+ * chunk is sorted along a Morton curve so neighbouring points hit the same
+ * regions back to back, split across a fixed lookup pool, and written out in
+ * the original order before the next chunk is read.
+ */
+@Service
+public class BatchLocationService {
+    // Chunk positions are packed into the low bits of the sort keys
+    private static final int INDEX_BITS = 20;
+    static final int MAX_CHUNK_SIZE = 1 << INDEX_BITS;
+    private static final int AXIS_BITS = 21;
+    private static final int MIN_SLICE = 256;
+
+    private final LocationService locationService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int threads;
+    private final ExecutorService executor;
+
+    public BatchLocationService(LocationService locationService, LocationProperties properties,
+            ObjectMapper objectMapper) {
+        this.locationService = locationService;
+        this.objectMapper = objectMapper;
+        LocationProperties.Batch batch = properties.getBatch();
+        this.chunkSize = Math.max(1, Math.min(batch.getChunkSize(), MAX_CHUNK_SIZE));
+        this.threads = batch.getThreads() > 0 ? batch.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-lookup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reads a JSON array of coordinate objects, stopping after {@code limit + 1}
+     * so an oversized batch is told apart without being held in memory whole.
+     */
+    public List<Coordinate> readJson(InputStream in, int limit) throws IOException {
+        List<Coordinate> coordinates = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of coordinates");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT && coordinates.size() <= limit) {
+                coordinates.add(objectMapper.readValue(parser, Coordinate.class));
+            }
+            if (token != JsonToken.END_ARRAY && coordinates.size() <= limit) {
+                throw new JsonParseException(parser, "Expected an array of coordinates");
+            }
+        }
+        return coordinates;
+    }
+
+    /**
+     * Writes one JSON array with a result object, or {@code null} when nothing
+     * matched, for every input coordinate in input order. A {@code level} of 0
+     * or more limits the results to that admin level.
+     */
+    public void writeJson(List<Coordinate> coordinates, int level, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+            for (int from = 0; from < coordinates.size(); from += chunkSize) {
+                List<Coordinate> chunk = coordinates.subList(from, Math.min(from + chunkSize, coordinates.size()));
+                for (RegionResult result : locateAll(chunk, level)) {
+                    writeResult(generator, result);
+                }
+                generator.flush();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Reads one coordinate object per line and writes one result per line. Only
+     * a single chunk of input and output is held in memory at a time.
+     */
+    public void writeNdjson(InputStream in, int level, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try (JsonGenerator generator = createGenerator(out)) {
+            List<Coordinate> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(objectMapper.readValue(line, Coordinate.class));
+                if (chunk.size() == chunkSize) {
+                    writeLines(generator, chunk, level);
+                    chunk.clear();
+                }
+            }
+            writeLines(generator, chunk, level);
+        }
+    }
+
+    private void writeLines(JsonGenerator generator, List<Coordinate> chunk, int level) throws IOException {
+        for (RegionResult result : locateAll(chunk, level)) {
+            writeResult(generator, result);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private static void writeResult(JsonGenerator generator, RegionResult result) throws IOException {
+        if (result == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(result.getSerialized());
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    /**
+     * Looks up every coordinate of the chunk, returning the results (or
+     * {@code null} for misses) in the same order as the input, at
+     * {@code level} as in {@link LocationService#find(double, double, int)}.
+     */
+    public RegionResult[] locateAll(List<Coordinate> chunk, int level) throws IOException {
+        int size = chunk.size();
+        RegionResult[] results = new RegionResult[size];
+        if (size == 0) {
+            return results;
+        }
+
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            Coordinate coordinate = chunk.get(i);
+            order[i] = (mortonCode(coordinate.getLatitude(), coordinate.getLongitude()) << INDEX_BITS) | i;
+        }
+        Arrays.sort(order);
+
+        int slices = Math.max(1, Math.min(threads, size / MIN_SLICE));
+        int sliceSize = (size + slices - 1) / slices;
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        for (int from = 0; from < size; from += sliceSize) {
+            int start = from;
+            int end = Math.min(from + sliceSize, size);
+            tasks.add(() -> {
+                for (int k = start; k < end; k++) {
+                    int index = (int) (order[k] & (MAX_CHUNK_SIZE - 1));
+                    Coordinate coordinate = chunk.get(index);
+                    results[index] = locationService.find(coordinate.getLatitude(), coordinate.getLongitude(),
+                            level);
+                }
+                return null;
+            });
+        }
+
+        if (tasks.size() == 1) {
+            runInline(tasks.get(0));
+            return results;
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch lookup interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch lookup failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    private static void runInline(Callable<Void> task) throws IOException {
+        try {
+            task.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Batch lookup failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Interleaves the quantized longitude and latitude bits (Z-order). */
+    static long mortonCode(double lat, double lon) {
+        long max = (1L << AXIS_BITS) - 1;
+        long x = (long) (clamp((lon + 180.0) / 360.0) * max);
+        long y = (long) (clamp((lat + 90.0) / 180.0) * max);
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static double clamp(double value) {
+        return value < 0 || Double.isNaN(value) ? 0 : Math.min(value, 1);
+    }
+
+    private static long spread(long value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+}
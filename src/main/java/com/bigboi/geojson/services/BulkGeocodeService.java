@@ -0,0 +1,303 @@
+package com.bigboi.geojson.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Service;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.BulkGeocodeReport;
+import com.bigboi.geojson.models.Coordinate;
+import com.bigboi.geojson.models.RegionResult;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tags every row of a delimited text file with the regions its coordinates
+ * fall in, for files far too large to send through the API. Rows are read,
+ * looked up and written a chunk at a time, so memory stays flat whatever the
+ * file size: the next chunk is parsed while the current one is looked up
+ * through {@link BatchLocationService#locateAll}, which sorts it along a
+ * Morton curve and gives each lookup thread one spatially compact run of
+ * points. Output rows keep the input order.
+ */
+@Service
+public class BulkGeocodeService {
+    private final BatchLocationService batchLocationService;
+    private final LocationProperties.Bulk settings;
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "bulk-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BulkGeocodeService(BatchLocationService batchLocationService, LocationProperties properties) {
+        this.batchLocationService = batchLocationService;
+        this.settings = properties.getBulk();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reader.shutdownNow();
+    }
+
+    /** The rows of one chunk, and the coordinates of those that have valid ones. */
+    private record Chunk(List<String> rows, List<Coordinate> coordinates, int[] coordinateOfRow) {
+        boolean isEmpty() {
+            return rows.isEmpty();
+        }
+    }
+
+    public BulkGeocodeReport geocode(Path input, Path output) throws IOException {
+        char delimiter = settings.getDelimiter().isEmpty() ? ',' : settings.getDelimiter().charAt(0);
+        int chunkSize = Math.max(1, Math.min(settings.getChunkSize(), BatchLocationService.MAX_CHUNK_SIZE));
+        List<String> columns = settings.getColumns();
+        resetPeakHeap();
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        long matched = 0;
+        long invalid = 0;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(open(input), StandardCharsets.UTF_8),
+                1 << 16);
+                Writer out = new BufferedWriter(new OutputStreamWriter(create(output), StandardCharsets.UTF_8),
+                        1 << 16)) {
+            int latColumn;
+            int lonColumn;
+            if (settings.isHeader()) {
+                String header = in.readLine();
+                if (header == null) {
+                    throw new IOException(input + " is empty");
+                }
+                List<String> names = Arrays.asList(split(header, delimiter, Integer.MAX_VALUE));
+                latColumn = columnIndex(names, settings.getLatColumn());
+                lonColumn = columnIndex(names, settings.getLonColumn());
+                out.write(header);
+                for (String column : columns) {
+                    out.write(delimiter);
+                    writeField(out, column, delimiter);
+                }
+                out.write('\n');
+            } else {
+                latColumn = columnNumber("lat-column", settings.getLatColumn());
+                lonColumn = columnNumber("lon-column", settings.getLonColumn());
+            }
+
+            Future<Chunk> next = reader.submit(() -> readChunk(in, chunkSize, delimiter, latColumn, lonColumn));
+            try {
+                while (true) {
+                    Chunk chunk = next.get();
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    next = reader.submit(() -> readChunk(in, chunkSize, delimiter, latColumn, lonColumn));
+
+                    RegionResult[] results = batchLocationService.locateAll(chunk.coordinates(), settings.getLevel());
+                    for (int i = 0; i < chunk.rows().size(); i++) {
+                        int coordinate = chunk.coordinateOfRow()[i];
+                        RegionResult result = coordinate >= 0 ? results[coordinate] : null;
+                        if (coordinate < 0) {
+                            invalid++;
+                        } else if (result != null) {
+                            matched++;
+                        }
+                        out.write(chunk.rows().get(i));
+                        for (String column : columns) {
+                            out.write(delimiter);
+                            if (result != null) {
+                                writeField(out, columnValue(result, column), delimiter);
+                            }
+                        }
+                        out.write('\n');
+                    }
+                    rows += chunk.rows().size();
+                }
+            } finally {
+                // A failed lookup or write leaves a read ahead in flight; it must be off the input before it closes
+                stopReading(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while tagging " + input, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read " + input + ": " + e.getCause().getMessage(), e.getCause());
+        }
+
+        return new BulkGeocodeReport(rows, matched, invalid, System.currentTimeMillis() - start, peakHeapBytes());
+    }
+
+    /** Cancels a read still running and waits until the reader thread has returned from it. */
+    private void stopReading(Future<Chunk> read) {
+        if (read.isDone()) {
+            return;
+        }
+        read.cancel(true);
+        try {
+            // The reader runs one task at a time, so this one starts only once the read has returned
+            reader.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // Shutting down: shutdownNow has interrupted the read already
+        }
+    }
+
+    private static Chunk readChunk(BufferedReader in, int chunkSize, char delimiter, int latColumn, int lonColumn)
+            throws IOException {
+        List<String> rows = new ArrayList<>(chunkSize);
+        List<Coordinate> coordinates = new ArrayList<>(chunkSize);
+        int[] coordinateOfRow = new int[chunkSize];
+        int maxColumn = Math.max(latColumn, lonColumn);
+        String line;
+        while (rows.size() < chunkSize && (line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int row = rows.size();
+            rows.add(line);
+            coordinateOfRow[row] = -1;
+            String[] fields = split(line, delimiter, maxColumn + 1);
+            if (fields.length <= maxColumn) {
+                continue;
+            }
+            try {
+                Coordinate coordinate = new Coordinate();
+                coordinate.setLatitude(Double.parseDouble(fields[latColumn].trim()));
+                coordinate.setLongitude(Double.parseDouble(fields[lonColumn].trim()));
+                if (isValid(coordinate.getLatitude(), coordinate.getLongitude())) {
+                    coordinateOfRow[row] = coordinates.size();
+                    coordinates.add(coordinate);
+                }
+            } catch (NumberFormatException e) {
+                // Left without a coordinate; the row is written with empty region columns
+            }
+        }
+        return new Chunk(rows, coordinates, coordinateOfRow);
+    }
+
+    /** Whether a coordinate lies on the globe; NaN and infinities fail both tests. */
+    private static boolean isValid(double lat, double lon) {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    /**
+     * The first {@code limit} fields of a row, with double-quoted fields
+     * unquoted. Quoted fields may hold the delimiter but not line breaks.
+     */
+    static String[] split(String line, char delimiter, int limit) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length() && fields.size() < limit; i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (fields.size() < limit) {
+            fields.add(field.toString());
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private static void writeField(Writer out, String value, char delimiter) throws IOException {
+        if (value.indexOf(delimiter) < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static String columnValue(RegionResult result, String column) {
+        String value = "countryCode".equals(column) ? result.getCountryCode() : result.getProperties().get(column);
+        return value != null ? value : "";
+    }
+
+    private static int columnIndex(List<String> names, String column) throws IOException {
+        int index = names.indexOf(column);
+        if (index < 0) {
+            throw new IOException("No column " + column + " in header " + names);
+        }
+        return index;
+    }
+
+    /** A column given by number, as it must be when the file has no header row. */
+    private static int columnNumber(String setting, String value) throws IOException {
+        try {
+            int index = Integer.parseInt(value.trim());
+            if (index >= 0) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException("app.location.bulk." + setting + " is \"" + value
+                + "\" but must be a 0-based column number when app.location.bulk.header is false");
+    }
+
+    private static InputStream open(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        return path.toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    private static OutputStream create(Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        return path.toString().endsWith(".gz") ? new GZIPOutputStream(out, 1 << 16) : out;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapBytes() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                bytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.bigboi.geojson.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.config.LocationProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reloads the location data when files in its directory change. Only works
+ * when the data pattern points at a directory on disk, not inside a jar.
+ * Events are collected for a short quiet period first, so copying in a batch
+ * of files triggers one reload.
+ */
+@Component
+public class DataDirectoryWatcher {
+    private static final long QUIET_PERIOD_MS = 500;
+
+    private final LocationService locationService;
+    private final LocationProperties properties;
+    private WatchService watchService;
+
+    public DataDirectoryWatcher(LocationService locationService, LocationProperties properties) {
+        this.locationService = locationService;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isWatch()) {
+            return;
+        }
+        Path directory = dataDirectory();
+        if (directory == null) {
+            System.err.println("Not watching " + properties.getDataPattern() + ": not a directory on disk");
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            System.err.println("Failed to watch " + directory + ": " + e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(this::watch, "geojson-watch");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Watching " + directory + " for changes");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private Path dataDirectory() {
+        String pattern = properties.getDataPattern();
+        String location = pattern.substring(0, pattern.lastIndexOf('/') + 1);
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(location);
+        try {
+            return resource.isFile() ? resource.getFile().toPath() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = drain(key);
+                // Keep collecting until the directory has been quiet for a while
+                while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(key);
+                }
+                if (relevant) {
+                    locationService.reloadAsync();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private static boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || event.context().toString().endsWith(".json")) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
@@ -2,15 +2,26 @@ package com.bigboi.geojson.services;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -18,21 +29,61 @@ import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.springframework.stereotype.Service;
 
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.io.HttpFileDownloader;
+import com.bigboi.geojson.metrics.LocationMetrics;
+
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class GeoDataDownloadService {
-    private static final String BASE_URL = "https://geodata.ucdavis.edu/gadm/gadm4.1/json/";
     private final GeoJsonService geoJsonService;
+    private final LocationProperties.Download settings;
     private final Path resourcesPath;
+    private final ExecutorService transferExecutor;
+    private final HttpFileDownloader downloader;
+    private final LocationMetrics metrics;
 
-    public GeoDataDownloadService(GeoJsonService geoJsonService) throws IOException {
+    public GeoDataDownloadService(GeoJsonService geoJsonService, LocationProperties properties,
+            LocationMetrics metrics) throws IOException {
         this.geoJsonService = geoJsonService;
-        this.resourcesPath = resolveResourcesPath();
+        this.metrics = metrics;
+        this.settings = properties.getDownload();
+        this.resourcesPath = resolveResourcesPath(properties.getFiles().getDir());
+        this.transferExecutor = newTransferExecutor(settings.getConcurrency());
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(settings.getConnectTimeoutSeconds()))
+                .build();
+        this.downloader = new HttpFileDownloader(client, Duration.ofSeconds(settings.getRequestTimeoutSeconds()));
+    }
+
+    /**
+     * Virtual threads when running on Java 21+, looked up reflectively so the
+     * build can stay on 17; otherwise one platform thread per transfer.
+     */
+    private static ExecutorService newTransferExecutor(int concurrency) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(concurrency, task -> {
+                Thread thread = new Thread(task, "geodata-download-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferExecutor.shutdownNow();
     }
 
-    private Path resolveResourcesPath() throws IOException {
+    private Path resolveResourcesPath(String dir) throws IOException {
         try {
 
-            File dataDir = new File("src/main/resources/data");
+            File dataDir = new File(dir);
             if (!dataDir.exists()) {
                 dataDir.mkdirs();
             }
@@ -45,7 +96,8 @@ public class GeoDataDownloadService {
         }
     }
 
-    public void fetchData() {
+    /** Downloads the country files, then reloads; returns the rebuild that reload started. */
+    public CompletableFuture<Boolean> fetchData() {
         try {
 
             Files.createDirectories(resourcesPath);
@@ -55,7 +107,7 @@ public class GeoDataDownloadService {
             // Download files
             downloadFiles(countryFiles);
 
-            geoJsonService.reloadGeoJsonData();
+            return geoJsonService.reloadGeoJsonData();
 
         } catch (IOException e) {
             throw new RuntimeException("Error fetching geodata: " + e.getMessage(), e);
@@ -65,7 +117,7 @@ public class GeoDataDownloadService {
     private Map<String, Map<Integer, String>> getCountryFiles() throws IOException {
         Map<String, Map<Integer, String>> countryFiles = new HashMap<>();
 
-        Document doc = Jsoup.connect(BASE_URL).get();
+        Document doc = Jsoup.connect(settings.getBaseUrl()).get();
         Elements links = doc.select("a[href$=.json]");
 
         for (Element link : links) {
@@ -85,45 +137,79 @@ public class GeoDataDownloadService {
         return countryFiles;
     }
 
-    private void downloadFiles(Map<String, Map<Integer, String>> countryFiles) {
+    /**
+     * Downloads the highest level file of every country, or every level with
+     * {@code allLevels} set, at most
+     * {@code concurrency} at a time. Files already on disk are revalidated
+     * with a conditional request rather than skipped, so a file left partial
+     * by an older version or changed upstream is fetched again.
+     */
+    private void downloadFiles(Map<String, Map<Integer, String>> countryFiles) throws IOException {
         System.out.println("Downloading files to: " + resourcesPath.toAbsolutePath());
 
+        Semaphore permits = new Semaphore(settings.getConcurrency());
+        AtomicLong totalBytes = new AtomicLong();
+        AtomicInteger notModified = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        List<Future<?>> pending = new ArrayList<>();
+
         countryFiles.forEach((countryCode, files) -> {
             Integer highestLevel = files.keySet().stream()
                     .max(Integer::compareTo)
                     .orElse(null);
+            if (highestLevel == null) {
+                return;
+            }
 
-            if (highestLevel != null) {
-                String fileUrl = BASE_URL + files.get(highestLevel);
-                String fileName = fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+            // Coarser levels are only loaded to back per-level lookups
+            Collection<Integer> levels = settings.isAllLevels() ? files.keySet() : List.of(highestLevel);
+            for (Integer level : levels) {
+                URI fileUrl = URI.create(settings.getBaseUrl()).resolve(files.get(level));
+                String path = fileUrl.getPath();
+                String fileName = path.substring(path.lastIndexOf('/') + 1);
                 Path filePath = resourcesPath.resolve(fileName);
 
-                if (Files.exists(filePath)) {
-                    System.out.println("Skipping " + fileName + " - already exists");
-                    return;
-                }
-
-                try {
-                    System.out.println("Downloading " + fileUrl);
-                    downloadFile(fileUrl, filePath);
-                    System.out.println("Downloaded " + fileName + " for country " +
-                            countryCode + " (Level " + highestLevel + ")");
-                } catch (IOException e) {
-                    System.err.println("Error downloading " + fileName + ": " + e.getMessage());
-                }
+                pending.add(transferExecutor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        HttpFileDownloader.Result result = downloader.download(fileUrl, filePath);
+                        totalBytes.addAndGet(result.bytes());
+                        metrics.recordDownload(result.bytes());
+                        if (result.outcome() == HttpFileDownloader.Outcome.NOT_MODIFIED) {
+                            notModified.incrementAndGet();
+                        } else {
+                            System.out.println("Downloaded " + fileName + " for country " + countryCode
+                                    + " (Level " + level + ", " + result.outcome() + ", "
+                                    + (result.bytes() >> 10) + " KB)");
+                        }
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                        System.err.println("Error downloading " + fileName + ": " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
         });
-    }
 
-    private void downloadFile(String fileUrl, Path filePath) throws IOException {
-        try (InputStream in = new URL(fileUrl).openStream();
-                OutputStream out = Files.newOutputStream(filePath)) {
-
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
+        try {
+            for (Future<?> future : pending) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Download failed: " + e.getCause().getMessage(), e.getCause());
         }
+
+        long millis = Math.max(System.currentTimeMillis() - start, 1);
+        metrics.recordDownloadRun(totalBytes.get(), millis);
+        System.out.println("Downloaded " + (totalBytes.get() >> 20) + " MB in " + millis + " ms ("
+                + (totalBytes.get() * 1000 / millis >> 10) + " KB/s), " + notModified.get() + " unchanged, "
+                + failed.get() + " failed");
     }
 }
@@ -1,59 +1,246 @@
 package com.bigboi.geojson.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.bigboi.geojson.config.LocationProperties;
 import com.bigboi.geojson.events.GeoJsonReloadEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bigboi.geojson.models.GeoJsonFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps an index of the raw GeoJSON files on disk for download. Files are
+ * never parsed here: requests stream them straight from disk, preferring a
+ * precompressed variant the client accepts. Variants live in a directory of
+ * their own and are written in the background, so indexing never waits on
+ * compression; a file is served uncompressed until its variant is ready.
+ */
 @Service
 public class GeoJsonService {
-    private final Map<String, Object> loadedGeoJsonData = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper;
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    // Swapped for a fully built index on reload, never cleared in place
+    private volatile Map<String, GeoJsonFile> files = Map.of();
+    private final LocationProperties.Files settings;
+    private final Path variantDir;
     private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "geojson-precompress");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final AtomicBoolean compressQueued = new AtomicBoolean();
 
-    public GeoJsonService(ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
-        this.objectMapper = objectMapper;
+    public GeoJsonService(LocationProperties properties, ApplicationEventPublisher eventPublisher) {
+        this.settings = properties.getFiles();
+        this.variantDir = Paths.get(settings.getVariantDir());
         this.eventPublisher = eventPublisher;
     }
 
-    public void reloadGeoJsonData() {
+    /** The on-disk file to send for one request. */
+    public record Representation(Path path, String contentEncoding, String etag, long lastModified) {
+    }
+
+    @PostConstruct
+    public void init() {
         try {
-            loadedGeoJsonData.clear();
-            Path dataDir = Paths.get("data");
-            if (Files.exists(dataDir)) {
-                Files.list(dataDir)
-                        .filter(path -> path.toString().endsWith(".json"))
-                        .forEach(this::loadGeoJsonFile);
-            }
+            indexFiles();
+        } catch (Exception e) {
+            System.err.println("Warning: Failed to index GeoJSON files: " + e.getMessage());
+        }
+        precompressInBackground();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compressor.shutdownNow();
+    }
+
+    /**
+     * Re-indexes the files and announces the change.
+     *
+     * @return the dataset rebuild the announcement started, completing with whether it succeeded
+     */
+    public CompletableFuture<Boolean> reloadGeoJsonData() {
+        GeoJsonReloadEvent event = new GeoJsonReloadEvent(this);
+        try {
+            indexFiles();
             // Publish event that data has been reloaded
-            eventPublisher.publishEvent(new GeoJsonReloadEvent(this));
+            eventPublisher.publishEvent(event);
         } catch (Exception e) {
             throw new RuntimeException("Failed to reload GeoJSON data", e);
         }
+        precompressInBackground();
+        return event.getRebuild();
+    }
+
+    /** Queues a pass writing the missing gzip variants, unless one is already waiting to run. */
+    private void precompressInBackground() {
+        if (!settings.isPrecompress() || !compressQueued.compareAndSet(false, true)) {
+            return;
+        }
+        compressor.execute(() -> {
+            compressQueued.set(false);
+            try {
+                int written = 0;
+                for (GeoJsonFile file : files.values()) {
+                    if (file.getGzipPath() == null) {
+                        compress(file.getPath(), variantDir.resolve(file.getName() + ".gz"));
+                        written++;
+                    }
+                }
+                if (written > 0) {
+                    indexFiles();
+                    System.out.println("Precompressed " + written + " GeoJSON files into " + variantDir);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: Failed to precompress GeoJSON files: " + e.getMessage());
+            }
+        });
     }
 
-    private void loadGeoJsonFile(Path filePath) {
+    private synchronized void indexFiles() throws IOException {
+        Map<String, GeoJsonFile> reloaded = new TreeMap<>();
+        Path dataDir = Paths.get(settings.getDir());
+        if (Files.exists(dataDir)) {
+            List<Path> paths;
+            try (Stream<Path> listing = Files.list(dataDir)) {
+                paths = listing.filter(path -> path.toString().endsWith(".json")).toList();
+            }
+            for (Path path : paths) {
+                GeoJsonFile file = indexFile(path);
+                if (file != null) {
+                    reloaded.put(file.getName(), file);
+                }
+            }
+        }
+        files = Collections.unmodifiableMap(reloaded);
+    }
+
+    /** The index entry of one file, or {@code null} if it went away or cannot be read. */
+    private GeoJsonFile indexFile(Path filePath) {
         try {
-            String fileName = filePath.getFileName().toString();
-            Object geoJson = objectMapper.readValue(filePath.toFile(), Object.class);
-            loadedGeoJsonData.put(fileName, geoJson);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load GeoJSON file: " + filePath, e);
+            long size = Files.size(filePath);
+            long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            Path gzipPath = variantDir.resolve(filePath.getFileName() + ".gz");
+            // No brotli encoder in the JDK; a .br made by an external tool is served if current
+            Path brotliPath = variantDir.resolve(filePath.getFileName() + ".br");
+
+            boolean gzip = isFresh(gzipPath, lastModified);
+            boolean brotli = isFresh(brotliPath, lastModified);
+            return new GeoJsonFile(filePath.getFileName().toString(), size, lastModified,
+                    gzip ? Files.size(gzipPath) : -1, brotli, filePath, gzip ? gzipPath : null,
+                    brotli ? brotliPath : null);
+        } catch (IOException e) {
+            // Typically deleted or renamed since the listing; the rest of the directory is still served
+            System.err.println("Skipping GeoJSON file " + filePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isFresh(Path variant, long sourceModified) throws IOException {
+        return Files.exists(variant) && Files.getLastModifiedTime(variant).toMillis() >= sourceModified;
+    }
+
+    private static void compress(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        // Dated as the source was when read, so a source replaced meanwhile still counts as newer
+        FileTime sourceModified = Files.getLastModifiedTime(source);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            Files.copy(source, out);
         }
+        Files.setLastModifiedTime(temp, sourceModified);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    public Object getGeoJsonData(String fileName) {
-        return loadedGeoJsonData.get(fileName);
+    public Optional<GeoJsonFile> getGeoJsonFile(String fileName) {
+        return Optional.ofNullable(files.get(fileName));
     }
 
-    public Map<String, Object> getAllGeoJsonData() {
-        return loadedGeoJsonData;
+    public Collection<GeoJsonFile> getAllGeoJsonFiles() {
+        return files.values();
+    }
+
+    /**
+     * Picks the smallest variant allowed by an {@code Accept-Encoding} header.
+     * Each variant has its own ETag, as its bytes differ.
+     */
+    public Representation select(GeoJsonFile file, String acceptEncoding) {
+        if (file.getBrotliPath() != null && accepts(acceptEncoding, BROTLI)) {
+            return new Representation(file.getBrotliPath(), BROTLI, variantEtag(file, BROTLI), file.getLastModified());
+        }
+        if (file.getGzipPath() != null && accepts(acceptEncoding, GZIP)) {
+            return new Representation(file.getGzipPath(), GZIP, variantEtag(file, GZIP), file.getLastModified());
+        }
+        return new Representation(file.getPath(), null, file.getEtag(), file.getLastModified());
+    }
+
+    private static String variantEtag(GeoJsonFile file, String encoding) {
+        String etag = file.getEtag();
+        return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header allows {@code encoding}: named
+     * with a q-value above 0, or left to a {@code *} with one. A coding named
+     * outright takes precedence over {@code *}, so {@code gzip;q=0, *} refuses
+     * gzip.
+     */
+    static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double named = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase(encoding)) {
+                named = quality(parts);
+            } else if (coding.equals("*")) {
+                any = quality(parts);
+            }
+        }
+        return (named >= 0 ? named : any) > 0;
+    }
+
+    /** The q parameter of an entry, 1 when absent; an unreadable one counts as 0. */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].replace(" ", "");
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
     }
 }
@@ -0,0 +1,115 @@
+package com.bigboi.geojson.services;
+
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.AdminRegion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers which region a grid cell resolved to. Points are quantized to a
+ * cell of {@code precision} bits per axis, and a cell is only remembered when
+ * it lies entirely inside the region found for it, so every point of a
+ * cached cell gets the same answer a full lookup would give. Cells crossing
+ * a boundary are remembered as such, so they are not re-checked on every miss.
+ * Entries carry the generation of the dataset they were computed from and are
+ * ignored once a reload has published a newer one.
+ */
+@Component
+public class LocationCache {
+    private final boolean enabled;
+    private final int precision;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final Cache<Long, CachedCell> cells;
+    private final Counter boundaryCells;
+
+    public LocationCache(LocationProperties properties, MeterRegistry meterRegistry) {
+        LocationProperties.Cache config = properties.getCache();
+        this.enabled = config.isEnabled();
+        this.precision = Math.max(1, Math.min(config.getPrecision(), 30));
+        this.cellWidth = 360.0 / (1 << precision);
+        this.cellHeight = 180.0 / (1 << precision);
+        this.cells = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .recordStats()
+                .build();
+        this.boundaryCells = Counter.builder("location.cache.boundary.cells")
+                .description("Cells not cached because they cross a region boundary")
+                .register(meterRegistry);
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cells, "location.results");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long keyFor(double lat, double lon) {
+        return (cellOf(lat, -90, cellHeight) << 32) | cellOf(lon, -180, cellWidth);
+    }
+
+    private long cellOf(double value, double origin, double size) {
+        long max = (1L << precision) - 1;
+        long cell = Math.max(0, Math.min((long) Math.floor((value - origin) / size), max));
+        // value - origin can round onto the next cell edge; keep the cell whose envelope holds value
+        if (cell > 0 && cell * size + origin > value) {
+            cell--;
+        } else if (cell < max && (cell + 1) * size + origin <= value) {
+            cell++;
+        }
+        return cell;
+    }
+
+    /** The region cached for the cell, or {@code null} when a full lookup is needed. */
+    public AdminRegion get(long key, long generation) {
+        CachedCell cached = cells.getIfPresent(key);
+        return cached != null && cached.generation == generation ? cached.region : null;
+    }
+
+    /**
+     * Called after a full lookup found {@code region} for a point in the cell;
+     * caches the cell if the region covers all of it.
+     */
+    public void offer(long key, AdminRegion region, long generation) {
+        CachedCell cached = cells.getIfPresent(key);
+        if (cached != null && cached.generation == generation) {
+            return;
+        }
+        if (region.containsRectangle(cellEnvelope(key))) {
+            cells.put(key, new CachedCell(region, generation));
+        } else {
+            cells.put(key, new CachedCell(null, generation));
+            boundaryCells.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        cells.invalidateAll();
+    }
+
+    private static class CachedCell {
+        // null for cells crossing a boundary
+        final AdminRegion region;
+        final long generation;
+
+        CachedCell(AdminRegion region, long generation) {
+            this.region = region;
+            this.generation = generation;
+        }
+    }
+
+    Envelope cellEnvelope(long key) {
+        long x = key & 0xFFFFFFFFL;
+        long y = key >>> 32;
+        return new Envelope(x * cellWidth - 180, (x + 1) * cellWidth - 180, y * cellHeight - 90,
+                (y + 1) * cellHeight - 90);
+    }
+}
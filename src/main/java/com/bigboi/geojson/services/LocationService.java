@@ -1,209 +1,878 @@
 package com.bigboi.geojson.services;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.MultiPolygon;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.geom.Polygon;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
 
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.geometry.CoordinateStore;
+import com.bigboi.geojson.geometry.GeometrySimplifier;
+import com.bigboi.geojson.geometry.HeapCoordinateStore;
+import com.bigboi.geojson.geometry.OffHeapCoordinateStore;
+import com.bigboi.geojson.geometry.RegionDissolver;
+import com.bigboi.geojson.index.InteriorGrid;
+import com.bigboi.geojson.index.RegionDataset;
+import com.bigboi.geojson.index.RegionIndex;
+import com.bigboi.geojson.io.GeoJsonFeatureReader;
+import com.bigboi.geojson.io.RegionSnapshotStore;
+import com.bigboi.geojson.io.SourceFingerprint;
+import com.bigboi.geojson.metrics.CountrySummary;
+import com.bigboi.geojson.metrics.LocationMetrics;
 import com.bigboi.geojson.models.AdminRegion;
 import com.bigboi.geojson.models.CountryBounds;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.bigboi.geojson.models.CountryData;
+import com.bigboi.geojson.models.LoadReport;
+import com.bigboi.geojson.models.LookupStats;
+import com.bigboi.geojson.models.RegionResult;
+import com.bigboi.geojson.models.SimplificationStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class LocationService {
-    private final Map<String, List<AdminRegion>> countries = new HashMap<>();
-    private final Map<String, CountryBounds> countryBounds = new HashMap<>();
+    private static final int SLOWEST_FILES_REPORTED = 10;
+    // Mean earth radius times pi / 180
+    private static final double METERS_PER_DEGREE = 111_195.0;
+    // Keeps the longitude span of a nearest search finite near the poles
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    // Replaced wholesale on reload; readers take one local copy per request
+    private volatile RegionDataset dataset = RegionDataset.empty();
+    private final LookupStats lookupStats = new LookupStats();
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "geojson-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object reloadLock = new Object();
+    // Completes when the queued reload has run; null when none is waiting
+    private CompletableFuture<Boolean> queuedReload;
     private final GeometryFactory geometryFactory;
+    private final LocationProperties properties;
     private final ObjectMapper objectMapper;
+    private final CoordinateStore coordinateStore;
+    private final GeoJsonFeatureReader featureReader;
+    private final RegionSnapshotStore snapshotStore;
+    private final GeometrySimplifier simplifier;
+    private final RegionDissolver dissolver;
+    private final LocationCache locationCache;
+    private final LocationMetrics metrics;
+
+    /** The closest region to a point outside every region, and how far it is in meters. */
+    private record Nearest(AdminRegion region, double meters) {
+    }
 
-    public LocationService(GeometryFactory geometryFactory) {
+    public LocationService(GeometryFactory geometryFactory, LocationProperties properties,
+            LocationCache locationCache, LocationMetrics metrics) {
         this.geometryFactory = geometryFactory;
+        this.properties = properties;
+        this.locationCache = locationCache;
+        this.metrics = metrics;
         this.objectMapper = new ObjectMapper();
+        this.coordinateStore = properties.getCoordinateStorage() == LocationProperties.CoordinateStorage.OFF_HEAP
+                ? new OffHeapCoordinateStore()
+                : new HeapCoordinateStore();
+        this.featureReader = new GeoJsonFeatureReader(objectMapper, geometryFactory, coordinateStore);
+        this.snapshotStore = properties.getSnapshot().isEnabled()
+                ? new RegionSnapshotStore(Paths.get(properties.getSnapshot().getDir()), geometryFactory, objectMapper,
+                        coordinateStore)
+                : null;
+        this.simplifier = new GeometrySimplifier(geometryFactory, coordinateStore);
+        this.dissolver = new RegionDissolver(geometryFactory, coordinateStore);
+        if (properties.getSimplify().getTolerance() > 0 && properties.getSimplify().isTwoTier()
+                && snapshotStore == null) {
+            System.err.println("Two-tier simplification reads full geometry from snapshots, which are disabled;"
+                    + " lookups will use the simplified geometry only");
+        }
     }
 
     @PostConstruct
     public void init() throws IOException {
         // loadGeojsonFiles();
+        long start = System.nanoTime();
         try {
-            loadGeojsonFiles();
+            publish(loadGeojsonFiles(RegionDataset.empty(), 1));
+            metrics.recordReload(System.nanoTime() - start, true);
         } catch (IOException e) {
             // Nice little catch all that just loggs the error but not c the application
             // startup
             System.err.println("Warning: Failed to load some GeoJSON files: " + e.getMessage());
-            countries.clear();
-            countryBounds.clear();
+            metrics.recordReload(System.nanoTime() - start, false);
         }
 
     }
 
-    private void loadGeojsonFiles() throws IOException {
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the dataset in the background and swaps it in once complete.
+     * Lookups keep using the current dataset meanwhile. Requests arriving while
+     * one is already queued are folded into it and share its future, which
+     * completes with whether the reload succeeded.
+     */
+    public synchronized CompletableFuture<Boolean> reloadAsync() {
+        if (queuedReload == null) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            queuedReload = future;
+            reloadExecutor.execute(() -> {
+                synchronized (this) {
+                    queuedReload = null;
+                }
+                future.complete(reload());
+            });
+        }
+        return queuedReload;
+    }
+
+    /**
+     * Rebuilds the dataset on the calling thread and swaps it in. Countries
+     * whose file is unchanged keep their regions and indexes; only added or
+     * changed files are parsed.
+     *
+     * @return whether a new dataset was published
+     */
+    public boolean reload() {
+        // Not synchronized on this, which would hold up reloadAsync callers for a whole rebuild
+        synchronized (reloadLock) {
+            return rebuild();
+        }
+    }
+
+    private boolean rebuild() {
+        long start = System.nanoTime();
+        try {
+            RegionDataset current = dataset;
+            RegionDataset next = loadGeojsonFiles(current, current.getGeneration() + 1);
+            publish(next);
+            metrics.recordReload(System.nanoTime() - start, true);
+            System.out.println("Reloaded " + next.getCountries().size() + " countries (generation "
+                    + next.getGeneration() + ") in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            metrics.recordReload(System.nanoTime() - start, false);
+            System.err.println("Reload failed, keeping the current dataset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void publish(RegionDataset next) {
+        dataset = next;
+        locationCache.invalidateAll();
+        Map<String, Long> heap = new HashMap<>();
+        next.getCountries().forEach((code, country) -> heap.put(code,
+                CountrySummary.of(country, next.getIndex()).heapEstimateBytes()));
+        metrics.updateHeapEstimates(heap);
+    }
+
+    private RegionDataset loadGeojsonFiles(RegionDataset previous, long generation) throws IOException {
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        Resource[] resources = resolver.getResources("classpath:data/*.json");
+        Resource[] resources = resolver.getResources(properties.getDataPattern());
+        Set<Integer> indexedLevels = Set.copyOf(properties.getLevels().getIndexed());
 
+        // A country's finest file answers every lookup; coarser ones only serve indexed levels
+        Map<String, NavigableMap<Integer, Resource>> filesByCountry = new TreeMap<>();
         for (Resource resource : resources) {
             String filename = resource.getFilename();
             if (filename == null)
                 continue;
+            filesByCountry.computeIfAbsent(filename.split("_")[1], code -> new TreeMap<>())
+                    .put(levelOf(filename), resource);
+        }
+
+        int threads = properties.getLoadThreads() > 0 ? properties.getLoadThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                task -> new Thread(task, "geojson-loader-" + counter.incrementAndGet()));
+
+        long start = System.currentTimeMillis();
+        Map<String, CountryData> countries = new ConcurrentHashMap<>();
+        Set<String> unchanged = ConcurrentHashMap.newKeySet();
+        // Regions of indexed levels by level and country, from coarser files or dissolved
+        Map<Integer, Map<String, CountryData>> levelData = new ConcurrentHashMap<>();
+        Set<String> reusedFiles = ConcurrentHashMap.newKeySet();
+        Map<String, LoadReport> previousReports = previous.getLoadReports().stream()
+                .collect(Collectors.toMap(LoadReport::getFileName, report -> report, (a, b) -> b));
+        List<Future<LoadReport>> pending = new ArrayList<>();
+        List<LoadReport> reports = new ArrayList<>();
+        try {
+            for (Map.Entry<String, NavigableMap<Integer, Resource>> entry : filesByCountry.entrySet()) {
+                String countryCode = entry.getKey();
+                NavigableMap<Integer, Resource> files = entry.getValue();
+                Resource resource = files.lastEntry().getValue();
+                Set<Integer> dissolveLevels = dissolveLevels(files, indexedLevels);
+                CountryData loaded = previous.getCountries().get(countryCode);
+                pending.add(pool.submit(() -> {
+                    if (loaded != null && loaded.isCurrent(resource)) {
+                        countries.put(countryCode, loaded);
+                        unchanged.add(countryCode);
+                        reusedFiles.add(resource.getFilename());
+                        keepDissolved(previous, loaded, dissolveLevels, levelData);
+                        return previousReports.get(resource.getFilename());
+                    }
+                    LoadReport report = loadGeojson(countryCode, resource, countries, dissolveLevels, levelData);
+                    if (report.isFailed() && loaded != null) {
+                        // Keep answering from the last good copy until the file parses again
+                        countries.put(countryCode, loaded);
+                        unchanged.add(countryCode);
+                        keepDissolved(previous, loaded, dissolveLevels, levelData);
+                    }
+                    return report;
+                }));
+
+                for (int level : indexedLevels) {
+                    Resource levelFile = files.get(level);
+                    if (levelFile == null || levelFile == resource) {
+                        continue;
+                    }
+                    Map<String, CountryData> target = levelData.computeIfAbsent(level,
+                            key -> new ConcurrentHashMap<>());
+                    CountryData loadedLevel = previous.getLevels().getOrDefault(level, Map.of()).get(countryCode);
+                    pending.add(pool.submit(() -> {
+                        if (loadedLevel != null && loadedLevel.isCurrent(levelFile)) {
+                            target.put(countryCode, loadedLevel);
+                            reusedFiles.add(levelFile.getFilename());
+                            return previousReports.get(levelFile.getFilename());
+                        }
+                        LoadReport report = loadGeojson(countryCode, levelFile, target, Set.of(), levelData);
+                        if (report.isFailed() && loadedLevel != null) {
+                            target.put(countryCode, loadedLevel);
+                        }
+                        return report;
+                    }));
+                }
+            }
 
-            String countryCode = filename.split("_")[1];
-            loadGeojson(countryCode, resource);
+            for (Future<LoadReport> future : pending) {
+                LoadReport report = future.get();
+                if (report != null) {
+                    reports.add(report);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading GeoJSON files", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load GeoJSON files: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        // Files kept from the previous dataset were not read this time
+        List<LoadReport> read = reports.stream()
+                .filter(report -> report.isFailed() || !reusedFiles.contains(report.getFileName()))
+                .toList();
+        read.forEach(metrics::recordLoad);
+        printLoadReport(read, threads, System.currentTimeMillis() - start);
+        if (previous.getGeneration() > 0) {
+            long removed = previous.getCountries().keySet().stream().filter(code -> !countries.containsKey(code))
+                    .count();
+            System.out.println("Reload: " + unchanged.size() + " countries unchanged, "
+                    + (countries.size() - unchanged.size()) + " parsed, " + removed + " removed");
         }
-    }
 
-    private void loadGeojson(String countryCode, Resource resource) throws IOException {
-        JsonNode root = objectMapper.readTree(resource.getInputStream());
-        if (!"FeatureCollection".equals(root.get("type").asText())) {
-            throw new IllegalArgumentException("Invalid GeoJSON: not a FeatureCollection");
+        if (properties.getSimplify().getTolerance() > 0) {
+            reportSimplification(countries);
+        }
+        if (properties.isPrepareEagerly()) {
+            prepareRegions(countries, unchanged);
         }
 
-        List<AdminRegion> regions = new ArrayList<>();
-        CountryBounds bounds = new CountryBounds();
+        Map<Integer, Map<String, CountryData>> levels = new TreeMap<>();
+        Map<Integer, RegionIndex> levelIndexes = new TreeMap<>();
+        for (int level : indexedLevels) {
+            Map<String, CountryData> own = levelData.getOrDefault(level, Map.of());
+            if (own.isEmpty()) {
+                // Every country would be indexed by its finest file, which the main index already is
+                continue;
+            }
+            levels.put(level, levelRegions(level, countries, own, previous, levelIndexes));
+        }
+        return new RegionDataset(generation, countries, buildRegionIndex(previous.getIndex(), countries, unchanged),
+                levels, levelIndexes, reports);
+    }
 
-        for (JsonNode feature : root.get("features")) {
-            processFeature(feature, regions, bounds);
+    /** GADM level from a file name such as gadm41_FRA_2.json, -1 when it has none. */
+    private static int levelOf(String filename) {
+        String[] parts = filename.split("[_.]");
+        try {
+            return parts.length > 2 ? Integer.parseInt(parts[2]) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
         }
+    }
 
-        countries.put(countryCode, regions);
-        countryBounds.put(countryCode, bounds);
+    /** Indexed levels coarser than a country's finest file that it has no file for. */
+    private Set<Integer> dissolveLevels(NavigableMap<Integer, Resource> files, Set<Integer> indexedLevels) {
+        if (!properties.getLevels().isDissolve()) {
+            return Set.of();
+        }
+        int finest = files.lastKey();
+        return indexedLevels.stream()
+                .filter(level -> level < finest && !files.containsKey(level))
+                .collect(Collectors.toUnmodifiableSet());
+    }
 
-        System.out.println("Loaded " + regions.size() + " regions for " + countryCode);
+    /** Carries over the regions dissolved from a finest file that has not changed. */
+    private static void keepDissolved(RegionDataset previous, CountryData loaded, Set<Integer> dissolveLevels,
+            Map<Integer, Map<String, CountryData>> levelData) {
+        for (int level : dissolveLevels) {
+            CountryData dissolved = previous.getLevels().getOrDefault(level, Map.of()).get(loaded.getCountryCode());
+            if (dissolved != null && dissolved != loaded && dissolved.getSourceName().equals(loaded.getSourceName())) {
+                levelData.computeIfAbsent(level, key -> new ConcurrentHashMap<>())
+                        .put(loaded.getCountryCode(), dissolved);
+            }
+        }
     }
 
-    private void processFeature(JsonNode feature, List<AdminRegion> regions, CountryBounds bounds) {
-        try {
-            JsonNode properties = feature.get("properties");
-            JsonNode geometry = feature.get("geometry");
+    /**
+     * The regions of every country at one level, falling back to the finest
+     * file where there are none of that level, and their index, built from the
+     * previous one for countries that did not change.
+     */
+    private Map<String, CountryData> levelRegions(int level, Map<String, CountryData> countries,
+            Map<String, CountryData> own, RegionDataset previous, Map<Integer, RegionIndex> levelIndexes) {
+        Map<String, CountryData> atLevel = new HashMap<>();
+        countries.forEach((code, finest) -> atLevel.put(code, own.getOrDefault(code, finest)));
+        Map<String, CountryData> previousAtLevel = previous.getLevels().getOrDefault(level, Map.of());
+        Set<String> unchanged = atLevel.keySet().stream()
+                .filter(code -> atLevel.get(code) == previousAtLevel.get(code))
+                .collect(Collectors.toSet());
+        RegionIndex previousIndex = previous.getLevelIndex(level);
+        RegionIndex index = RegionIndex.update(previousIndex != null ? previousIndex : RegionIndex.empty(), atLevel,
+                unchanged, null);
+        levelIndexes.put(level, index);
+        System.out.println("Indexed level " + level + ": " + index.getRegionCount() + " regions, "
+                + own.size() + " countries with regions of their own");
+        return atLevel;
+    }
 
-            MultiPolygon multiPolygon = createMultiPolygon(geometry);
-            bounds.updateBounds(multiPolygon);
+    private void reportSimplification(Map<String, CountryData> countries) {
+        long fullVertices = 0;
+        long simplifiedVertices = 0;
+        for (CountryData country : countries.values()) {
+            for (AdminRegion region : country.getRegions()) {
+                fullVertices += region.getFullVertexCount();
+                simplifiedVertices += region.getGeometry().getNumPoints();
+            }
+        }
+        SimplificationStats stats = lookupStats.getSimplification();
+        stats.setVertexCounts(properties.getSimplify().getTolerance(), fullVertices, simplifiedVertices);
+        System.out.println("Simplified at tolerance " + stats.getTolerance() + ": " + fullVertices + " -> "
+                + simplifiedVertices + " vertices (" + (stats.getFullVertexBytes() >> 20) + " MB -> "
+                + (stats.getSimplifiedVertexBytes() >> 20) + " MB)");
+    }
 
-            Map<String, String> adminLevels = extractAdminLevels(properties);
-            Map<String, Object> originalProps = objectMapper.convertValue(properties, Map.class);
+    private void prepareRegions(Map<String, CountryData> countries, Set<String> unchanged) {
+        long start = System.currentTimeMillis();
+        countries.values().parallelStream()
+                .filter(country -> !unchanged.contains(country.getCountryCode()))
+                .flatMap(country -> country.getRegions().stream())
+                .forEach(AdminRegion::prepare);
+        System.out.println("Prepared point-in-polygon indexes in " + (System.currentTimeMillis() - start) + " ms");
+    }
 
-            regions.add(new AdminRegion(multiPolygon, adminLevels, originalProps));
-        } catch (Exception e) {
-            System.err.println("Error processing feature: " + e.getMessage());
+    private RegionIndex buildRegionIndex(RegionIndex previous, Map<String, CountryData> countries,
+            Set<String> unchanged) {
+        long start = System.currentTimeMillis();
+        boolean grids = properties.getLookupMode() == LocationProperties.LookupMode.GRID;
+        RegionIndex index = RegionIndex.update(previous, countries, unchanged, grids ? properties.getGrid() : null);
+        System.out.println("Indexed " + index.getRegionCount() + " regions across " + index.getCountryCount()
+                + " countries (" + index.getCountryIndexSize() + " country footprint boxes) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        if (grids) {
+            System.out.println("Interior grids: " + (index.getGridSizeBytes() >> 10) + " KB");
         }
+        return index;
     }
 
-    private MultiPolygon createMultiPolygon(JsonNode geometry) {
-        String type = geometry.get("type").asText();
-        JsonNode coordinates = geometry.get("coordinates");
+    private void printLoadReport(List<LoadReport> reports, int threads, long millis) {
+        long bytes = reports.stream().mapToLong(report -> Math.max(report.getBytes(), 0)).sum();
+        System.out.println("Loaded " + reports.size() + " GeoJSON files (" + (bytes >> 20) + " MB) in " + millis
+                + " ms on " + threads + " threads");
+        System.out.println("Coordinates: " + (coordinateStore.getAllocatedBytes() >> 20) + " MB "
+                + properties.getCoordinateStorage());
+        reports.stream()
+                .sorted(Comparator.comparingLong(LoadReport::getMillis).reversed())
+                .limit(SLOWEST_FILES_REPORTED)
+                .forEach(report -> System.out.println("  " + report.getFileName() + ": " + report.getMillis()
+                        + " ms, " + report.getRegions() + " regions, " + (report.getBytes() >> 10) + " KB"));
+    }
 
-        List<Polygon> polygons = new ArrayList<>();
-        if ("MultiPolygon".equals(type)) {
-            for (JsonNode polygonCoords : coordinates) {
+    /**
+     * Parses one country file into {@code countries}, and dissolves its
+     * regions into {@code levelData} for each of {@code dissolveLevels}. Runs
+     * on the loader pool, so a failure is reported in the returned report
+     * rather than thrown.
+     */
+    private LoadReport loadGeojson(String countryCode, Resource resource, Map<String, CountryData> countries,
+            Set<Integer> dissolveLevels, Map<Integer, Map<String, CountryData>> levelData) {
+        long start = System.currentTimeMillis();
+        String fileName = resource.getFilename();
+        int level = levelOf(fileName);
+
+        List<AdminRegion> snapshot = readSnapshot(fileName, countryCode, resource);
+        if (snapshot != null) {
+            CountryBounds bounds = new CountryBounds(properties.getCountryCellSize());
+            snapshot.forEach(region -> bounds.updateBounds(region.getGeometry()));
+            SourceFingerprint fingerprint = snapshotFingerprint(fileName, resource);
+            dissolve(countryCode, fileName, fingerprint, snapshot, dissolveLevels, levelData);
+            List<AdminRegion> loaded = simplify(fileName, fingerprint, snapshot);
+            countries.put(countryCode, new CountryData(countryCode, fileName, level,
+                    Collections.unmodifiableList(loaded), bounds, fingerprint));
+
+            System.out.println("Loaded " + snapshot.size() + " regions for " + countryCode + " from snapshot");
+            return new LoadReport(fileName, countryCode, snapshot.size(), contentLength(resource),
+                    System.currentTimeMillis() - start, true, null);
+        }
 
-                org.locationtech.jts.geom.LinearRing shell = createRing(polygonCoords.get(0));
-                org.locationtech.jts.geom.LinearRing[] holes = new org.locationtech.jts.geom.LinearRing[polygonCoords
-                        .size() - 1];
+        List<AdminRegion> regions = new ArrayList<>();
+        // Complete feature properties, held only until the snapshot is written
+        List<Map<String, Object>> originals = new ArrayList<>();
+        CountryBounds bounds = new CountryBounds(properties.getCountryCellSize());
+        MessageDigest digest = SourceFingerprint.newDigest();
+
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            featureReader.read(in, (feature, props, geometry) -> processFeature(countryCode, resource, feature, props,
+                    geometry, regions, originals, bounds));
+            // The parser may stop short of trailing whitespace; the hash has to cover the whole file
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading " + fileName + ": " + e.getMessage());
+            return new LoadReport(fileName, countryCode, 0, contentLength(resource),
+                    System.currentTimeMillis() - start, false, e.getMessage());
+        }
 
-                for (int i = 1; i < polygonCoords.size(); i++) {
-                    holes[i - 1] = createRing(polygonCoords.get(i));
-                }
+        SourceFingerprint fingerprint = fingerprint(resource, digest.digest());
+        // The snapshot keeps full resolution; it is where simplified regions fall back to
+        writeSnapshot(fileName, fingerprint, regions, originals);
+        dissolve(countryCode, fileName, fingerprint, regions, dissolveLevels, levelData);
+        List<AdminRegion> loaded = simplify(fileName, fingerprint,
+                withSnapshotProperties(fileName, fingerprint, regions));
+        countries.put(countryCode, new CountryData(countryCode, fileName, level,
+                Collections.unmodifiableList(loaded), bounds, fingerprint));
+
+        System.out.println("Loaded " + regions.size() + " regions for " + countryCode);
+        return new LoadReport(fileName, countryCode, regions.size(), contentLength(resource),
+                System.currentTimeMillis() - start, false, null);
+    }
 
-                polygons.add(geometryFactory.createPolygon(shell, holes));
+    /**
+     * Merges full-resolution regions into those of each coarser level. The
+     * merged regions have no snapshot of their own, so with a tolerance set
+     * they are simplified without a full geometry to fall back to.
+     */
+    private void dissolve(String countryCode, String fileName, SourceFingerprint fingerprint,
+            List<AdminRegion> regions, Set<Integer> levels, Map<Integer, Map<String, CountryData>> levelData) {
+        double tolerance = properties.getSimplify().getTolerance();
+        for (int level : levels) {
+            long start = System.currentTimeMillis();
+            List<AdminRegion> dissolved = dissolver.dissolve(countryCode, regions, level);
+            CountryBounds bounds = new CountryBounds(properties.getCountryCellSize());
+            List<AdminRegion> loaded = new ArrayList<>(dissolved.size());
+            for (AdminRegion region : dissolved) {
+                bounds.updateBounds(region.getGeometry());
+                loaded.add(tolerance > 0
+                        ? region.simplified(simplifier.simplify(region.getGeometry(), tolerance), tolerance, null,
+                                lookupStats.getSimplification())
+                        : region);
             }
-        } else if ("Polygon".equals(type)) {
-            org.locationtech.jts.geom.LinearRing shell = createRing(coordinates.get(0));
-            org.locationtech.jts.geom.LinearRing[] holes = new org.locationtech.jts.geom.LinearRing[coordinates.size()
-                    - 1];
+            levelData.computeIfAbsent(level, key -> new ConcurrentHashMap<>()).put(countryCode,
+                    new CountryData(countryCode, fileName, level, Collections.unmodifiableList(loaded), bounds,
+                            fingerprint));
+            System.out.println("Dissolved " + regions.size() + " regions of " + countryCode + " into "
+                    + loaded.size() + " at level " + level + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /**
+     * Replaces full-resolution regions by simplified ones when a tolerance is
+     * configured. In two-tier mode each keeps a way back to its full geometry
+     * in the file's snapshot, read only for points near its boundary.
+     */
+    private List<AdminRegion> simplify(String fileName, SourceFingerprint fingerprint, List<AdminRegion> regions) {
+        LocationProperties.Simplify settings = properties.getSimplify();
+        double tolerance = settings.getTolerance();
+        if (tolerance <= 0) {
+            return regions;
+        }
+
+        RegionSnapshotStore.RegionReader fullGeometries = settings.isTwoTier()
+                ? openFullGeometries(fileName, fingerprint)
+                : null;
+        SimplificationStats stats = lookupStats.getSimplification();
+        List<AdminRegion> simplified = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i++) {
+            AdminRegion region = regions.get(i);
+            int index = i;
+            AdminRegion.GeometrySource fullGeometry = fullGeometries != null ? () -> fullGeometries.read(index) : null;
+            simplified.add(region.simplified(simplifier.simplify(region.getGeometry(), tolerance), tolerance,
+                    fullGeometry, stats));
+        }
+        return simplified;
+    }
+
+    /**
+     * Points the original properties of freshly parsed regions at the snapshot
+     * just written, which is much cheaper to read them back from than the
+     * source. Without a snapshot they keep reading the source.
+     */
+    private List<AdminRegion> withSnapshotProperties(String fileName, SourceFingerprint fingerprint,
+            List<AdminRegion> regions) {
+        RegionSnapshotStore.RegionReader reader = openSnapshot(fileName, fingerprint);
+        if (reader == null) {
+            return regions;
+        }
+        List<AdminRegion> result = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i++) {
+            int index = i;
+            result.add(regions.get(i).withOriginalProperties(() -> reader.readOriginalProperties(index)));
+        }
+        return result;
+    }
+
+    private RegionSnapshotStore.RegionReader openSnapshot(String fileName, SourceFingerprint fingerprint) {
+        if (snapshotStore == null || fingerprint == null) {
+            return null;
+        }
+        try {
+            return snapshotStore.openRegions(fileName, fingerprint).orElse(null);
+        } catch (IOException e) {
+            System.err.println("Failed to open snapshot of " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-            for (int i = 1; i < coordinates.size(); i++) {
-                holes[i - 1] = createRing(coordinates.get(i));
+    private RegionSnapshotStore.RegionReader openFullGeometries(String fileName, SourceFingerprint fingerprint) {
+        if (snapshotStore == null) {
+            return null;
+        }
+        try {
+            RegionSnapshotStore.RegionReader reader = snapshotStore.openRegions(fileName, fingerprint)
+                    .orElse(null);
+            if (reader == null) {
+                System.err.println("No snapshot of " + fileName + " to fall back to; using simplified geometry only");
             }
+            return reader;
+        } catch (IOException e) {
+            System.err.println("Failed to open snapshot of " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<AdminRegion> readSnapshot(String fileName, String countryCode, Resource resource) {
+        if (snapshotStore == null) {
+            return null;
+        }
+        try {
+            return snapshotStore.read(fileName, countryCode, resource).orElse(null);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot of " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(String fileName, SourceFingerprint fingerprint, List<AdminRegion> regions,
+            List<Map<String, Object>> originals) {
+        if (snapshotStore == null || fingerprint == null) {
+            return;
+        }
+        try {
+            snapshotStore.write(fileName, fingerprint, regions, originals);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to write snapshot of " + fileName + ": " + e.getMessage());
+        }
+    }
 
-            polygons.add(geometryFactory.createPolygon(shell, holes));
+    private static SourceFingerprint fingerprint(Resource resource, byte[] hash) {
+        try {
+            return SourceFingerprint.of(resource, hash);
+        } catch (IOException e) {
+            return null;
         }
+    }
 
-        return geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+    /**
+     * The snapshot was only used because it matched the source, so its hash is
+     * the source's; the current mtime saves rehashing a touched file next time.
+     */
+    private SourceFingerprint snapshotFingerprint(String fileName, Resource resource) {
+        try {
+            return snapshotStore.readFingerprint(fileName)
+                    .map(stored -> fingerprint(resource, stored.getHash()))
+                    .orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
     }
 
-    private org.locationtech.jts.geom.LinearRing createRing(JsonNode coordinates) {
-        org.locationtech.jts.geom.Coordinate[] coords = new org.locationtech.jts.geom.Coordinate[coordinates.size()];
-        for (int i = 0; i < coordinates.size(); i++) {
-            JsonNode point = coordinates.get(i);
-            coords[i] = new org.locationtech.jts.geom.Coordinate(point.get(0).asDouble(), point.get(1).asDouble());
+    private static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return -1;
         }
-        return geometryFactory.createLinearRing(coords);
     }
 
-    private Polygon createPolygon(JsonNode coordinates) {
-        org.locationtech.jts.geom.Coordinate[] coords = new org.locationtech.jts.geom.Coordinate[coordinates.size()];
-        for (int i = 0; i < coordinates.size(); i++) {
-            JsonNode point = coordinates.get(i);
-            coords[i] = new org.locationtech.jts.geom.Coordinate(point.get(0).asDouble(), point.get(1).asDouble());
+    private void processFeature(String countryCode, Resource resource, int feature, Map<String, Object> properties,
+            MultiPolygon geometry, List<AdminRegion> regions, List<Map<String, Object>> originals,
+            CountryBounds bounds) {
+        try {
+            bounds.updateBounds(geometry);
+
+            Map<String, String> adminLevels = extractAdminLevels(properties);
+
+            regions.add(new AdminRegion(countryCode, geometry, adminLevels).withOriginalProperties(() -> {
+                try (InputStream in = resource.getInputStream()) {
+                    return featureReader.readProperties(in, feature);
+                }
+            }));
+            originals.add(properties);
+        } catch (Exception e) {
+            System.err.println("Error processing feature: " + e.getMessage());
         }
-        CoordinateSequence coordinateSequence = geometryFactory.getCoordinateSequenceFactory().create(coords);
-        return geometryFactory.createPolygon(coordinateSequence);
     }
 
-    private Map<String, String> extractAdminLevels(JsonNode properties) {
+    private Map<String, String> extractAdminLevels(Map<String, Object> properties) {
         Map<String, String> adminLevels = new HashMap<>();
-        properties.fields().forEachRemaining(entry -> {
-            String key = entry.getKey();
+        properties.forEach((key, value) -> {
             if (key.startsWith("NAME_")) {
-                String value = entry.getValue().asText();
-                if (!"NA".equals(value)) {
-                    adminLevels.put("level_" + key.split("_")[1], value);
+                String name = String.valueOf(value);
+                if (!"NA".equals(name)) {
+                    adminLevels.put("level_" + key.split("_")[1], name);
                 }
             } else if ("COUNTRY".equals(key)) {
-                adminLevels.put("country", entry.getValue().asText());
+                adminLevels.put("country", String.valueOf(value));
             }
         });
         return adminLevels;
     }
 
     public Optional<Map<String, Object>> findLocation(double lat, double lon) {
+        RegionResult result = find(lat, lon);
+        return result != null ? Optional.of(result.getMap()) : Optional.empty();
+    }
+
+    public RegionResult find(double lat, double lon) {
+        return find(lat, lon, -1);
+    }
 
-        Point point = geometryFactory.createPoint(new org.locationtech.jts.geom.Coordinate(lon, lat));
-
-        for (Map.Entry<String, List<AdminRegion>> entry : countries.entrySet()) {
-            String countryCode = entry.getKey();
-            CountryBounds bounds = countryBounds.get(countryCode);
-
-            if (bounds.containsPoint(lat, lon)) {
-                for (AdminRegion region : entry.getValue()) {
-                    try {
-                        if (region.getGeometry().contains(point)) {
-                            Map<String, Object> result = new HashMap<>();
-                            result.put("country", countryCode);
-                            result.put("levelsCount", region.getProperties().size());
-                            result.put("properties", region.getProperties());
-                            // result.put("original_properties", region.getOriginalProperties());
-                            return Optional.of(result);
+    /**
+     * The response for a point: the result of the region containing it, or
+     * when nearest mode is on and no region does, that of the closest region
+     * within the maximum distance. {@code null} if there is neither.
+     * <p>
+     * With a {@code level} of 0 or more the response names only the levels
+     * up to it. Levels with an index of their own are searched there; others
+     * are answered from the finest region, which lies inside exactly one
+     * region of every coarser level.
+     */
+    public RegionResult find(double lat, double lon, int level) {
+        AdminRegion region = containing(lat, lon, level);
+        if (region != null) {
+            return region.getResult(level);
+        }
+        Nearest nearest = properties.getNearest().isEnabled() ? findNearest(lat, lon) : null;
+        return nearest != null ? nearest.region().getResult(level).withDistance(nearest.meters()) : null;
+    }
+
+    /**
+     * As {@link #find(double, double, int)}, with the complete properties of
+     * the source feature added as {@code originalProperties}. They are read
+     * back from the snapshot or source file on every call, so this is far
+     * slower than a plain lookup.
+     */
+    public RegionResult findWithOriginalProperties(double lat, double lon, int level) {
+        AdminRegion region = containing(lat, lon, level);
+        RegionResult result;
+        if (region != null) {
+            result = region.getResult(level);
+        } else {
+            Nearest nearest = properties.getNearest().isEnabled() ? findNearest(lat, lon) : null;
+            if (nearest == null) {
+                return null;
+            }
+            region = nearest.region();
+            result = region.getResult(level).withDistance(nearest.meters());
+        }
+        Map<String, Object> original = region.getOriginalProperties();
+        try {
+            return result.withOriginalProperties(original, objectMapper.writeValueAsString(original));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The region containing the point, searched at {@code level} when that level has an index. */
+    private AdminRegion containing(double lat, double lon, int level) {
+        RegionIndex levelIndex = level >= 0 ? dataset.getLevelIndex(level) : null;
+        return levelIndex != null ? search(levelIndex, lat, lon, System.nanoTime(), false, 0, 0)
+                : locate(lat, lon);
+    }
+
+    /**
+     * Ranks every region whose envelope reaches within the maximum distance
+     * of the point by its distance in meters, measured on a plane scaled to
+     * the point's latitude. Good to well under a percent at the distances a
+     * coastline fallback is meant for; searches do not wrap the antimeridian.
+     */
+    private Nearest findNearest(double lat, double lon) {
+        long start = System.nanoTime();
+        double maxMeters = properties.getNearest().getMaxDistanceMeters();
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), MIN_COS_LATITUDE);
+        double latDegrees = maxMeters / METERS_PER_DEGREE;
+        double lonDegrees = Math.min(latDegrees / cos, 180);
+        Envelope search = new Envelope(lon - lonDegrees, lon + lonDegrees, lat - latDegrees, lat + latDegrees);
+
+        // In scaled degrees, where a degree of latitude is METERS_PER_DEGREE
+        RegionIndex index = dataset.getIndex();
+        AdminRegion nearest = null;
+        double nearestDistance = latDegrees;
+        for (String countryCode : index.countriesAt(search)) {
+            for (AdminRegion region : index.regionsAt(countryCode, search)) {
+                // A region is never closer than its envelope
+                if (envelopeDistance(region.getEnvelope(), lon, lat, cos) > nearestDistance) {
+                    continue;
+                }
+                double distance = region.distance(lon, lat, cos, nearestDistance);
+                if (distance <= nearestDistance) {
+                    nearest = region;
+                    nearestDistance = distance;
+                }
+            }
+        }
+
+        lookupStats.recordNearest(nearest != null);
+        metrics.recordNearest(System.nanoTime() - start, nearest != null);
+        return nearest != null ? new Nearest(nearest, nearestDistance * METERS_PER_DEGREE) : null;
+    }
+
+    private static double envelopeDistance(Envelope envelope, double x, double y, double xScale) {
+        double dx = Math.max(0, Math.max(envelope.getMinX() - x, x - envelope.getMaxX())) * xScale;
+        double dy = Math.max(0, Math.max(envelope.getMinY() - y, y - envelope.getMaxY()));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * The region containing the point, or {@code null}. Its
+     * {@link AdminRegion#getResult() result} is the response to send.
+     */
+    public AdminRegion locate(double lat, double lon) {
+        long start = System.nanoTime();
+        RegionDataset current = dataset;
+        long cacheKey = 0;
+        if (locationCache.isEnabled()) {
+            cacheKey = locationCache.keyFor(lat, lon);
+            AdminRegion cached = locationCache.get(cacheKey, current.getGeneration());
+            if (cached != null) {
+                return recordLookup(start, 0, 0, cached);
+            }
+        }
+
+        return search(current.getIndex(), lat, lon, start, locationCache.isEnabled(), cacheKey,
+                current.getGeneration());
+    }
+
+    /** Finds the region of {@code index} containing the point, offering it to the cache if asked to. */
+    private AdminRegion search(RegionIndex index, double lat, double lon, long start, boolean cache,
+            long cacheKey, long generation) {
+        Envelope search = new Envelope(lon, lon, lat, lat);
+        int countriesTested = 0;
+        int tested = 0;
+        for (String countryCode : index.countriesAt(search)) {
+            countriesTested++;
+            List<AdminRegion> candidates;
+            InteriorGrid grid = index.gridFor(countryCode);
+            if (grid != null) {
+                AdminRegion interior = grid.interiorAt(lon, lat);
+                if (interior != null) {
+                    metrics.recordCountryTested(countryCode, true);
+                    return recordLookup(start, countriesTested, tested, interior);
+                }
+                candidates = grid.candidatesAt(lon, lat);
+            } else {
+                candidates = index.regionsAt(countryCode, search);
+            }
+
+            for (AdminRegion region : candidates) {
+                tested++;
+                try {
+                    if (region.contains(lon, lat)) {
+                        if (cache) {
+                            locationCache.offer(cacheKey, region, generation);
                         }
-                    } catch (Exception e) {
-                        System.err.println("Error checking region: " + e.getMessage());
+                        metrics.recordCountryTested(countryCode, true);
+                        return recordLookup(start, countriesTested, tested, region);
                     }
+                } catch (Exception e) {
+                    System.err.println("Error checking region: " + e.getMessage());
                 }
             }
+            metrics.recordCountryTested(countryCode, false);
         }
 
-        return Optional.empty();
+        return recordLookup(start, countriesTested, tested, null);
+    }
+
+    private AdminRegion recordLookup(long start, int countriesTested, int candidatesTested, AdminRegion found) {
+        lookupStats.record(countriesTested, candidatesTested, found != null);
+        metrics.recordLookup(System.nanoTime() - start, candidatesTested,
+                found != null ? found.getCountryCode() : null);
+        return found;
+    }
+
+    public LookupStats getLookupStats() {
+        return lookupStats;
+    }
+
+    /** The dataset lookups currently answer from. */
+    public RegionDataset getDataset() {
+        return dataset;
+    }
+
+    public List<LoadReport> getLoadReports() {
+        return dataset.getLoadReports();
     }
 
     public Map<String, Map<String, Integer>> getAvailableCountries() {
-        return countries.entrySet().stream()
+        return dataset.getCountries().values().stream()
                 .collect(Collectors.toMap(
-                        entry -> extractCountryName(entry.getValue()),
-                        entry -> getAdminLevels(entry.getValue())));
+                        country -> extractCountryName(country.getRegions()),
+                        country -> getAdminLevels(country.getRegions())));
     }
 
     private String extractCountryName(List<AdminRegion> regions) {
@@ -216,13 +885,14 @@ public class LocationService {
         if (regions.isEmpty())
             return Collections.emptyMap();
 
+        // Regions leave out levels named NA, so no single one is sure to have them all
         Map<String, Integer> levelNames = new HashMap<>();
-        Map<String, String> properties = regions.get(0).getProperties();
-
-        for (String key : properties.keySet()) {
-            if (key.startsWith("level_")) {
-                int levelNumber = Integer.parseInt(key.split("_")[1]);
-                levelNames.put(key, levelNumber);
+        for (AdminRegion region : regions) {
+            for (String key : region.getProperties().keySet()) {
+                int level = AdminRegion.levelOfKey(key);
+                if (level >= 0 && key.startsWith("level_")) {
+                    levelNames.put(key, level);
+                }
             }
         }
 
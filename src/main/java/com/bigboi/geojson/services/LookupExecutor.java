@@ -0,0 +1,79 @@
+package com.bigboi.geojson.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.bigboi.geojson.config.LocationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The pool single lookups run on when {@code execution.lookup-pool} is on: a
+ * fixed set of threads behind a short queue. The request thread is released
+ * while waiting, CPU-heavy lookups cannot take more cores than the pool has,
+ * and once the queue is full new lookups are refused at once with
+ * {@link RejectedExecutionException} instead of waiting behind it. With the
+ * pool off there is no such bean and lookups run on the request thread.
+ */
+@Component
+@ConditionalOnProperty(name = "app.location.execution.lookup-pool", havingValue = "true")
+public class LookupExecutor {
+    private final ThreadPoolExecutor pool;
+    private final Counter rejected;
+    private final int retryAfterSeconds;
+
+    public LookupExecutor(LocationProperties properties, MeterRegistry meterRegistry) {
+        LocationProperties.Execution settings = properties.getExecution();
+        this.retryAfterSeconds = settings.getRetryAfterSeconds();
+        this.rejected = Counter.builder("location.lookup.rejected")
+                .description("Lookups refused because the lookup pool was backed up")
+                .register(meterRegistry);
+        int threads = settings.getLookupThreads() > 0 ? settings.getLookupThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getLookupQueue())), task -> {
+                    Thread thread = new Thread(task, "lookup-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("location.lookup.queue", pool, executor -> executor.getQueue().size())
+                .description("Lookups waiting for a lookup thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Runs the lookup. Exceptions it throws complete the future.
+     *
+     * @throws RejectedExecutionException when the pool's queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> lookup) {
+        try {
+            return CompletableFuture.supplyAsync(lookup, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,137 @@
+package com.bigboi.geojson.services;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.index.RegionDataset;
+import com.bigboi.geojson.models.MaintenanceJob;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs downloads and reloads one at a time on a low-priority background
+ * thread, so they never hold a request thread and compete as little as
+ * possible with lookups. A job is done once the dataset it leads to has been
+ * rebuilt and published, not merely when its files are on disk. Submitting a
+ * job while one of the same type is still queued returns the queued one.
+ */
+@Service
+public class MaintenanceJobService {
+    private static final int JOBS_KEPT = 50;
+
+    private final GeoDataDownloadService geoDataDownloadService;
+    private final GeoJsonService geoJsonService;
+    private final LocationService locationService;
+    private final TileService tileService;
+    private final int rebuildTimeoutMinutes;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "maintenance-job");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Map<String, MaintenanceJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MaintenanceJob> eldest) {
+            return size() > JOBS_KEPT && eldest.getValue().isDone();
+        }
+    };
+    private final Map<MaintenanceJob.Type, MaintenanceJob> latest = new EnumMap<>(MaintenanceJob.Type.class);
+
+    public MaintenanceJobService(GeoDataDownloadService geoDataDownloadService, GeoJsonService geoJsonService,
+            LocationService locationService, TileService tileService, LocationProperties properties) {
+        this.geoDataDownloadService = geoDataDownloadService;
+        this.geoJsonService = geoJsonService;
+        this.locationService = locationService;
+        this.tileService = tileService;
+        this.rebuildTimeoutMinutes = properties.getJobs().getRebuildTimeoutMinutes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preseedTiles() {
+        if (tileService.isPreseedEnabled()) {
+            submit(MaintenanceJob.Type.PRESEED);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized MaintenanceJob submit(MaintenanceJob.Type type) {
+        MaintenanceJob previous = latest.get(type);
+        if (previous != null && previous.getState() == MaintenanceJob.State.QUEUED) {
+            return previous;
+        }
+        MaintenanceJob job = new MaintenanceJob(UUID.randomUUID().toString(), type);
+        jobs.put(job.getId(), job);
+        latest.put(type, job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    private void run(MaintenanceJob job) {
+        job.markRunning();
+        try {
+            if (job.getType() == MaintenanceJob.Type.PRESEED) {
+                long start = System.currentTimeMillis();
+                int tiles = tileService.preseed();
+                job.markFinished(true, "Built " + tiles + " tiles of dataset generation "
+                        + locationService.getDataset().getGeneration() + " in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                return;
+            }
+            CompletableFuture<Boolean> rebuild = job.getType() == MaintenanceJob.Type.FETCH
+                    ? geoDataDownloadService.fetchData()
+                    : geoJsonService.reloadGeoJsonData();
+            // The files are in place; wait for the rebuild the reload event queued
+            if (rebuild.get(rebuildTimeoutMinutes, TimeUnit.MINUTES)) {
+                RegionDataset dataset = locationService.getDataset();
+                job.markFinished(true, "Dataset generation " + dataset.getGeneration() + " with "
+                        + dataset.getCountries().size() + " countries");
+                // The reload dropped every tile; rebuild the low zooms from the new regions
+                preseedTiles();
+            } else {
+                job.markFinished(false, "Files updated but the rebuild failed; the previous dataset is still used");
+            }
+        } catch (TimeoutException e) {
+            // The rebuild goes on and is published if it completes; the job thread moves on
+            System.err.println("Job " + job.getId() + " (" + job.getType() + ") gave up waiting for the rebuild");
+            job.markFinished(false, "Files updated but the rebuild did not finish within " + rebuildTimeoutMinutes
+                    + " minutes");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markFinished(false, "Interrupted while waiting for the rebuild");
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            System.err.println("Job " + job.getId() + " (" + job.getType() + ") failed: " + cause.getMessage());
+            job.markFinished(false, cause.getMessage());
+        }
+    }
+
+    public synchronized Optional<MaintenanceJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /** Recent jobs, oldest first. */
+    public synchronized List<MaintenanceJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+}
@@ -0,0 +1,262 @@
+package com.bigboi.geojson.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.operation.overlayng.OverlayNG;
+import org.locationtech.jts.operation.overlayng.OverlayNGRobust;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.springframework.stereotype.Service;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.index.RegionDataset;
+import com.bigboi.geojson.index.RegionIndex;
+import com.bigboi.geojson.io.GeoJsonGeometries;
+import com.bigboi.geojson.models.AdminRegion;
+import com.bigboi.geojson.models.RegionQuery;
+import com.bigboi.geojson.models.RegionResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Finds the regions meeting a bounding box or polygon. Candidates come from
+ * the region index by envelope, and only those are tested against the area,
+ * prepared once per query. Matches are written out as GeoJSON features as
+ * they are found, a page at a time.
+ */
+@Service
+public class RegionQueryService {
+    private static final int FLUSH_EVERY = 64;
+
+    private final LocationService locationService;
+    private final GeometryFactory geometryFactory;
+    private final ObjectMapper objectMapper;
+    private final LocationProperties.Query settings;
+
+    public RegionQueryService(LocationService locationService, GeometryFactory geometryFactory,
+            ObjectMapper objectMapper, LocationProperties properties) {
+        this.locationService = locationService;
+        this.geometryFactory = geometryFactory;
+        this.objectMapper = objectMapper;
+        this.settings = properties.getQuery();
+    }
+
+    /**
+     * Checks a query and binds it to the current dataset, before anything is
+     * written.
+     *
+     * @throws IllegalArgumentException when the query is malformed
+     * @throws IllegalStateException    when it continues paging through a
+     *                                  dataset that has since been replaced
+     */
+    public Plan plan(RegionQuery query) {
+        if ((query.getBbox() == null) == (query.getArea() == null)) {
+            throw new IllegalArgumentException("Give either bbox or area");
+        }
+        boolean rectangle = query.getBbox() != null;
+        Geometry area = rectangle ? rectangle(query.getBbox()) : GeoJsonGeometries.read(query.getArea(),
+                geometryFactory);
+        if (!area.isValid()) {
+            throw new IllegalArgumentException("The area is not a valid polygon");
+        }
+
+        int limit = query.getLimit() != null ? query.getLimit() : settings.getDefaultLimit();
+        if (limit < 1 || limit > settings.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + settings.getMaxLimit());
+        }
+        if (query.getOffset() < 0 || query.getSimplify() < 0) {
+            throw new IllegalArgumentException("offset and simplify cannot be negative");
+        }
+
+        RegionDataset dataset = locationService.getDataset();
+        if (query.getGeneration() != null && query.getGeneration() != dataset.getGeneration()) {
+            throw new IllegalStateException("Regions were reloaded since generation " + query.getGeneration()
+                    + "; start again from offset 0");
+        }
+
+        int level = query.getLevel() != null ? query.getLevel() : -1;
+        RegionIndex index = level >= 0 ? dataset.getLevelIndex(level) : null;
+        // Without an index of its own, a level is read off its finer regions, several to one
+        boolean merge = level >= 0 && index == null;
+        if (merge && query.getGeometry() != RegionQuery.GeometryOutput.NONE) {
+            throw new IllegalArgumentException("Level " + level + " has no index of its own, so only its"
+                    + " properties can be returned; list it in app.location.levels.indexed for geometry");
+        }
+        return new Plan(query, dataset, index != null ? index : dataset.getIndex(), area, rectangle, level, limit,
+                merge);
+    }
+
+    private Geometry rectangle(List<Double> bbox) {
+        if (bbox.size() != 4 || bbox.contains(null)) {
+            throw new IllegalArgumentException("bbox is [minLongitude, minLatitude, maxLongitude, maxLatitude]");
+        }
+        double minX = bbox.get(0);
+        double minY = bbox.get(1);
+        double maxX = bbox.get(2);
+        double maxY = bbox.get(3);
+        if (!(minX <= maxX && minY <= maxY)) {
+            throw new IllegalArgumentException("bbox minimums must not exceed its maximums;"
+                    + " split boxes crossing the antimeridian in two");
+        }
+        return geometryFactory.toGeometry(new Envelope(minX, maxX, minY, maxY));
+    }
+
+    /** A checked query against one dataset. */
+    public final class Plan {
+        private final RegionQuery query;
+        private final RegionDataset dataset;
+        private final RegionIndex index;
+        private final Geometry area;
+        private final PreparedGeometry prepared;
+        private final Envelope envelope;
+        private final boolean rectangle;
+        private final int level;
+        private final int limit;
+        private final boolean merge;
+
+        private Plan(RegionQuery query, RegionDataset dataset, RegionIndex index, Geometry area, boolean rectangle,
+                int level, int limit, boolean merge) {
+            this.query = query;
+            this.dataset = dataset;
+            this.index = index;
+            this.area = area;
+            this.prepared = PreparedGeometryFactory.prepare(area);
+            this.envelope = area.getEnvelopeInternal();
+            this.rectangle = rectangle;
+            this.level = level;
+            this.limit = limit;
+            this.merge = merge;
+        }
+
+        /**
+         * One GeoJSON FeatureCollection, with the dataset {@code generation}
+         * and the {@code next} offset to ask for, null on the last page.
+         */
+        public void writeFeatureCollection(OutputStream out) throws IOException {
+            try (JsonGenerator generator = createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "FeatureCollection");
+                generator.writeNumberField("generation", dataset.getGeneration());
+                generator.writeNumberField("offset", query.getOffset());
+                generator.writeArrayFieldStart("features");
+                int written = writeFeatures(generator, false);
+                generator.writeEndArray();
+                generator.writeFieldName("next");
+                if (written > limit) {
+                    generator.writeNumber(query.getOffset() + limit);
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeEndObject();
+            }
+        }
+
+        /** One GeoJSON Feature per line, for the same page. */
+        public void writeNdjson(OutputStream out) throws IOException {
+            try (JsonGenerator generator = createGenerator(out)) {
+                writeFeatures(generator, true);
+            }
+        }
+
+        /**
+         * Writes the matches of the page in a stable order, country by country,
+         * and returns how many there were, counting one more than the limit
+         * when a further page exists.
+         */
+        private int writeFeatures(JsonGenerator generator, boolean lines) throws IOException {
+            List<String> countries = new ArrayList<>(index.countriesAt(envelope));
+            Collections.sort(countries);
+            Set<Map<String, String>> seen = merge ? new HashSet<>() : null;
+            int skipped = 0;
+            int written = 0;
+            for (String countryCode : countries) {
+                for (AdminRegion region : index.regionsAt(countryCode, envelope)) {
+                    if (!intersects(region)) {
+                        continue;
+                    }
+                    RegionResult result = region.getResult(level);
+                    if (merge && !seen.add(result.getProperties())) {
+                        continue;
+                    }
+                    if (skipped < query.getOffset()) {
+                        skipped++;
+                        continue;
+                    }
+                    if (written == limit) {
+                        return written + 1;
+                    }
+                    writeFeature(generator, region, result);
+                    if (lines) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+            return written;
+        }
+
+        private boolean intersects(AdminRegion region) {
+            // A box holding the whole envelope holds the whole region
+            return (rectangle && envelope.covers(region.getEnvelope())) || prepared.intersects(region.getGeometry());
+        }
+
+        private void writeFeature(JsonGenerator generator, AdminRegion region, RegionResult result)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+            generator.writeObjectFieldStart("properties");
+            generator.writeStringField("countryCode", result.getCountryCode());
+            for (Map.Entry<String, String> entry : result.getProperties().entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeFieldName("geometry");
+            Geometry shape = shape(region);
+            if (shape == null) {
+                generator.writeNull();
+            } else {
+                GeoJsonGeometries.writeMultiPolygon(generator, shape);
+            }
+            generator.writeEndObject();
+        }
+
+        private Geometry shape(AdminRegion region) {
+            if (query.getGeometry() == RegionQuery.GeometryOutput.NONE) {
+                return null;
+            }
+            Geometry shape = region.getGeometry();
+            try {
+                if (query.getGeometry() == RegionQuery.GeometryOutput.CLIPPED
+                        && !(rectangle && envelope.covers(region.getEnvelope()))) {
+                    shape = OverlayNGRobust.overlay(shape, area, OverlayNG.INTERSECTION);
+                }
+                if (query.getSimplify() > 0) {
+                    shape = TopologyPreservingSimplifier.simplify(shape, query.getSimplify());
+                }
+                return shape;
+            } catch (RuntimeException e) {
+                System.err.println("Error shaping a region of " + region.getCountryCode() + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
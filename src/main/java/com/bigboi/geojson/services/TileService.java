@@ -0,0 +1,379 @@
+package com.bigboi.geojson.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.util.GeometryTransformer;
+import org.locationtech.jts.operation.overlayng.OverlayNG;
+import org.locationtech.jts.operation.overlayng.OverlayNGRobust;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.stereotype.Service;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.index.RegionDataset;
+import com.bigboi.geojson.index.RegionIndex;
+import com.bigboi.geojson.io.MvtEncoder;
+import com.bigboi.geojson.models.AdminRegion;
+import com.bigboi.geojson.models.RegionResult;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Map tiles of the region boundaries in Mapbox Vector Tile format, built from
+ * the regions in memory on first request. Each region meeting a tile is
+ * clipped to the tile plus a small buffer, projected to Web Mercator tile
+ * pixels and simplified to a pixel there, so a tile costs about the same
+ * whatever the zoom. Built tiles are kept in a size-bounded cache; tiles it
+ * pushes out are written to disk and read back from there. Tiles are keyed
+ * by dataset generation, so a reload never serves boundaries it replaced.
+ */
+@Service
+public class TileService {
+    private static final String LAYER = "regions";
+    private static final int DEEPEST_ZOOM = 24;
+    private static final double MAX_LATITUDE = 85.0511287798;
+    // Paths under the spill directory that spill creates: generation, z and x directories, tiles and temp files
+    private static final Pattern SPILLED = Pattern.compile("\\d+(/\\d+(/\\d+(/(\\d+\\.mvt|tile\\d+\\.tmp))?)?)?");
+
+    private record TileKey(long generation, int z, int x, int y) {
+    }
+
+    private final LocationService locationService;
+    private final GeometryFactory geometryFactory;
+    private final LocationProperties.Tiles settings;
+    private final AsyncCache<TileKey, byte[]> tiles;
+    private final Timer generateTimer;
+    // A directory of its own under spill-dir, holding only <generation>/<z>/<x>/<y>.mvt; null when spilling is off
+    private final Path spillDir;
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final ExecutorService spillCleaner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "tile-spill-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TileService(LocationService locationService, GeometryFactory geometryFactory,
+            LocationProperties properties, MeterRegistry meterRegistry) {
+        this.locationService = locationService;
+        this.geometryFactory = geometryFactory;
+        this.settings = properties.getTiles();
+        this.spillDir = settings.getSpillDir().isBlank() ? null : Paths.get(settings.getSpillDir()).resolve("mvt");
+        this.tiles = Caffeine.newBuilder()
+                .maximumWeight(settings.getCacheMaxMb() << 20)
+                .weigher((TileKey key, byte[] tile) -> tile.length + 64)
+                .removalListener((TileKey key, byte[] tile, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        spill(key, tile);
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, tiles.synchronous(), "location.tiles");
+        this.generateTimer = Timer.builder("location.tiles.generate")
+                .description("Time to build a tile not found in memory or on disk")
+                .register(meterRegistry);
+        // Spilled tiles of an earlier run belong to datasets that are gone
+        clearSpilled(Long.MAX_VALUE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        spillCleaner.shutdownNow();
+    }
+
+    /**
+     * The tile at {@code z/x/y}, empty when no region reaches it.
+     *
+     * @throws IllegalArgumentException when there is no such tile
+     */
+    public byte[] tile(int z, int x, int y) {
+        if (z < 0 || z > Math.min(settings.getMaxZoom(), DEEPEST_ZOOM) || x < 0 || y < 0 || x >= (1 << z)
+                || y >= (1 << z)) {
+            throw new IllegalArgumentException("No tile " + z + "/" + x + "/" + y);
+        }
+        RegionDataset dataset = locationService.getDataset();
+        TileKey key = new TileKey(dataset.getGeneration(), z, x, y);
+        // Only the placeholder goes in under the cache's lock; the tile is built after, on this thread
+        CompletableFuture<byte[]> building = new CompletableFuture<>();
+        CompletableFuture<byte[]> tile = tiles.get(key, (k, executor) -> building);
+        if (tile == building) {
+            try {
+                byte[] spilled = readSpilled(key);
+                building.complete(spilled != null ? spilled : generateTimer.record(() -> generate(dataset, key)));
+            } catch (RuntimeException | Error e) {
+                // A failed future is dropped from the cache, so the next request tries again
+                building.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return tile.join();
+    }
+
+    /**
+     * Drops the tiles of datasets older than the current one, in memory and on
+     * disk. Meant for once a reload has swapped its dataset in; until then the
+     * old tiles are still the ones served.
+     */
+    public void retireOldGenerations() {
+        long current = locationService.getDataset().getGeneration();
+        tiles.synchronous().asMap().keySet().removeIf(key -> key.generation() < current);
+        clearSpilled(current);
+    }
+
+    public boolean isPreseedEnabled() {
+        return settings.getPreseedMaxZoom() >= 0;
+    }
+
+    /**
+     * Builds every tile up to the preseed zoom that has a region in it, so the
+     * zooms every map view starts from are served straight from the cache.
+     *
+     * @return the number of tiles built or found already built
+     */
+    public int preseed() {
+        int maxZoom = Math.min(settings.getPreseedMaxZoom(), Math.min(settings.getMaxZoom(), DEEPEST_ZOOM));
+        RegionIndex index = locationService.getDataset().getIndex();
+        int count = 0;
+        for (int z = 0; z <= maxZoom; z++) {
+            int n = 1 << z;
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    if (!index.countriesAt(tileEnvelope(z, x, y, 0)).isEmpty()) {
+                        tile(z, x, y);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private byte[] generate(RegionDataset dataset, TileKey key) {
+        int z = key.z();
+        int extent = settings.getExtent();
+        Envelope clip = tileEnvelope(z, key.x(), key.y(), (double) settings.getBuffer() / extent);
+        Geometry clipArea = geometryFactory.toGeometry(clip);
+        // Regions smaller than a pixel each way would not show
+        double centerLatitude = Math.max(-MAX_LATITUDE, Math.min(clip.centre().y, MAX_LATITUDE));
+        double pixelDegrees = 360.0 / ((1 << z) * (double) extent) * Math.cos(Math.toRadians(centerLatitude));
+        TileProjection projection = new TileProjection(z, key.x(), key.y(), extent);
+
+        int level = z < settings.getLevelByZoom().size() ? settings.getLevelByZoom().get(z) : -1;
+        RegionIndex levelIndex = level >= 0 ? dataset.getLevelIndex(level) : null;
+        RegionIndex index = levelIndex != null ? levelIndex : dataset.getIndex();
+
+        MvtEncoder encoder = new MvtEncoder(LAYER, extent);
+        List<String> countries = new ArrayList<>(index.countriesAt(clip));
+        Collections.sort(countries);
+        for (String countryCode : countries) {
+            for (AdminRegion region : index.regionsAt(countryCode, clip)) {
+                Envelope envelope = region.getEnvelope();
+                if (envelope.getWidth() < pixelDegrees && envelope.getHeight() < pixelDegrees) {
+                    continue;
+                }
+                try {
+                    Geometry shape;
+                    if (clip.covers(envelope)) {
+                        shape = region.getGeometry();
+                    } else if (region.containsRectangle(clip)) {
+                        shape = clipArea;
+                    } else {
+                        shape = OverlayNGRobust.overlay(region.getGeometry(), clipArea, OverlayNG.INTERSECTION);
+                    }
+                    if (shape.isEmpty()) {
+                        continue;
+                    }
+                    Geometry pixels = projection.transform(shape);
+                    if (settings.getSimplifyPixels() > 0) {
+                        pixels = DouglasPeuckerSimplifier.simplify(pixels, settings.getSimplifyPixels());
+                    }
+                    encoder.addFeature(rings(pixels), properties(region.getResult(level)));
+                } catch (RuntimeException e) {
+                    System.err.println("Error drawing a region of " + countryCode + " on tile " + z + "/" + key.x()
+                            + "/" + key.y() + ": " + e.getMessage());
+                }
+            }
+        }
+        return encoder.encode();
+    }
+
+    /** The area of a tile in degrees, grown by {@code buffer} tiles on every side. */
+    private static Envelope tileEnvelope(int z, int x, int y, double buffer) {
+        double n = 1 << z;
+        return new Envelope(longitude(x - buffer, n), longitude(x + 1 + buffer, n), latitude(y + 1 + buffer, n),
+                latitude(y - buffer, n));
+    }
+
+    private static double longitude(double x, double n) {
+        return x / n * 360.0 - 180.0;
+    }
+
+    private static double latitude(double y, double n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / n))));
+    }
+
+    /** Degrees to pixels of one tile, y growing downwards. */
+    private static final class TileProjection extends GeometryTransformer {
+        private final double n;
+        private final int x;
+        private final int y;
+        private final int extent;
+
+        TileProjection(int z, int x, int y, int extent) {
+            this.n = 1 << z;
+            this.x = x;
+            this.y = y;
+            this.extent = extent;
+        }
+
+        @Override
+        protected CoordinateSequence transformCoordinates(CoordinateSequence coordinates, Geometry parent) {
+            PackedCoordinateSequence.Double projected = new PackedCoordinateSequence.Double(coordinates.size(), 2,
+                    0);
+            for (int i = 0; i < coordinates.size(); i++) {
+                double lat = Math.max(-MAX_LATITUDE, Math.min(coordinates.getY(i), MAX_LATITUDE));
+                double sin = Math.sin(Math.toRadians(lat));
+                double tileY = (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * n;
+                double tileX = (coordinates.getX(i) + 180.0) / 360.0 * n;
+                projected.setOrdinate(i, 0, (tileX - x) * extent);
+                projected.setOrdinate(i, 1, (tileY - y) * extent);
+            }
+            return projected;
+        }
+    }
+
+    private static List<List<double[]>> rings(Geometry geometry) {
+        List<List<double[]>> polygons = new ArrayList<>(geometry.getNumGeometries());
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon && !polygon.isEmpty()) {
+                List<double[]> rings = new ArrayList<>(1 + polygon.getNumInteriorRing());
+                rings.add(xy(polygon.getExteriorRing()));
+                for (int k = 0; k < polygon.getNumInteriorRing(); k++) {
+                    rings.add(xy(polygon.getInteriorRingN(k)));
+                }
+                polygons.add(rings);
+            }
+        }
+        return polygons;
+    }
+
+    private static double[] xy(LineString ring) {
+        CoordinateSequence sequence = ring.getCoordinateSequence();
+        double[] xy = new double[sequence.size() * 2];
+        for (int i = 0; i < sequence.size(); i++) {
+            xy[2 * i] = sequence.getX(i);
+            xy[2 * i + 1] = sequence.getY(i);
+        }
+        return xy;
+    }
+
+    private static Map<String, String> properties(RegionResult result) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("countryCode", result.getCountryCode());
+        properties.putAll(result.getProperties());
+        return properties;
+    }
+
+    private Path spillPath(TileKey key) {
+        return spillDir.resolve(Long.toString(key.generation())).resolve(Integer.toString(key.z()))
+                .resolve(Integer.toString(key.x())).resolve(key.y() + ".mvt");
+    }
+
+    private void spill(TileKey key, byte[] tile) {
+        // A tile of a replaced dataset is not read again, and might land after its generation was cleared
+        if (spillDir == null || tile.length == 0 || key.generation() < locationService.getDataset().getGeneration()
+                || spilledBytes.get() + tile.length > settings.getSpillMaxMb() << 20) {
+            return;
+        }
+        Path file = spillPath(key);
+        try {
+            if (Files.exists(file)) {
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+            Files.write(temp, tile);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            spilledBytes.addAndGet(tile.length);
+        } catch (IOException e) {
+            System.err.println("Failed to spill tile " + file + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] readSpilled(TileKey key) {
+        if (spillDir == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(spillPath(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable spilled tile: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Deletes the spilled tiles of generations before {@code keepFrom}. */
+    private void clearSpilled(long keepFrom) {
+        if (spillDir == null) {
+            return;
+        }
+        spilledBytes.set(0);
+        spillCleaner.execute(() -> {
+            if (!Files.isDirectory(spillDir)) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(spillDir, 4)) {
+                // Only what spill wrote; children sort before their directories, which go once empty
+                files.filter(path -> isSpilled(spillDir.relativize(path), keepFrom))
+                        .sorted(Comparator.reverseOrder())
+                        .forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                System.err.println("Failed to clear spilled tiles in " + spillDir + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private static boolean isSpilled(Path relative, long keepFrom) {
+        if (!SPILLED.matcher(relative.toString().replace(relative.getFileSystem().getSeparator(), "/")).matches()) {
+            return false;
+        }
+        try {
+            return Long.parseLong(relative.getName(0).toString()) < keepFrom;
+        } catch (NumberFormatException e) {
+            // Too many digits for a generation of ours
+            return false;
+        }
+    }
+}
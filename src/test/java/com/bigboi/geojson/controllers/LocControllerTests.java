@@ -0,0 +1,73 @@
+package com.bigboi.geojson.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.metrics.LocationMetrics;
+import com.bigboi.geojson.services.BatchLocationService;
+import com.bigboi.geojson.services.LocationCache;
+import com.bigboi.geojson.services.LocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocControllerTests {
+	private static final String POINT = "{\"latitude\":5,\"longitude\":5}";
+
+	private BatchLocationService batchLocationService;
+	private LocController controller;
+
+	@BeforeEach
+	void setUp() {
+		LocationProperties properties = new LocationProperties();
+		properties.getBatch().setMaxSize(2);
+		properties.getBatch().setThreads(1);
+		properties.getSnapshot().setEnabled(false);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		LocationService locationService = new LocationService(new GeometryFactory(), properties,
+				new LocationCache(properties, registry), new LocationMetrics(registry));
+		batchLocationService = new BatchLocationService(locationService, properties, new ObjectMapper());
+		controller = new LocController(locationService, batchLocationService, null, null, null, properties);
+	}
+
+	@AfterEach
+	void shutdown() {
+		batchLocationService.shutdown();
+	}
+
+	private static InputStream json(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void acceptsABatchAtTheLimit() throws Exception {
+		assertThat(controller.findLocations(json("[" + POINT + "," + POINT + "]"), null).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void refusesABatchOverTheLimit() {
+		assertThatThrownBy(() -> controller.findLocations(json("[" + POINT + "," + POINT + "," + POINT + "]"), null))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+	}
+
+	@Test
+	void refusesABodyThatIsNotAnArray() {
+		assertThatThrownBy(() -> controller.findLocations(json(POINT), null))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+}
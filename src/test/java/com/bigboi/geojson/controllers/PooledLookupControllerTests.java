@@ -0,0 +1,90 @@
+package com.bigboi.geojson.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.metrics.LocationMetrics;
+import com.bigboi.geojson.services.LocationCache;
+import com.bigboi.geojson.services.LocationService;
+import com.bigboi.geojson.services.LookupExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PooledLookupControllerTests {
+	private static final String POINT = "{\"latitude\":5,\"longitude\":5}";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private LookupExecutor lookupExecutor;
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		LocationProperties properties = new LocationProperties();
+		properties.getExecution().setLookupPool(true);
+		properties.getExecution().setLookupThreads(1);
+		properties.getExecution().setLookupQueue(1);
+		properties.getExecution().setRetryAfterSeconds(7);
+		properties.getSnapshot().setEnabled(false);
+		lookupExecutor = new LookupExecutor(properties, registry);
+		// No dataset loaded: every lookup that runs is a 404
+		LocationService locationService = new LocationService(new GeometryFactory(), properties,
+				new LocationCache(properties, registry), new LocationMetrics(registry));
+		mvc = MockMvcBuilders.standaloneSetup(new PooledLookupController(locationService, lookupExecutor)).build();
+	}
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		lookupExecutor.shutdown();
+	}
+
+	@Test
+	void runsLookupsOnThePool() throws Exception {
+		MvcResult result = mvc.perform(post("/api/location/find").contentType(MediaType.APPLICATION_JSON)
+				.content(POINT))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void refusesLookupsWithRetryAfterWhenTheQueueIsFull() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		// One lookup holding the only thread, one waiting in the one queue slot
+		lookupExecutor.submit(() -> {
+			running.countDown();
+			try {
+				return release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		});
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		lookupExecutor.submit(() -> true);
+
+		mvc.perform(post("/api/location/find").contentType(MediaType.APPLICATION_JSON).content(POINT))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "7"));
+		assertThat(registry.get("location.lookup.rejected").counter().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,233 @@
+package com.bigboi.geojson.geometry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+class BandedPointInAreaLocatorTests {
+	private final GeometryFactory geometryFactory = new GeometryFactory();
+	private final MultiPolygon geometry = multiPolygon(new HeapCoordinateStore());
+	private final IndexedPointInAreaLocator reference = new IndexedPointInAreaLocator(geometry);
+
+	/**
+	 * Two polygons: one with a battlemented top edge, full of horizontal
+	 * edges on shared y values, and three holes; one roughly round, with a
+	 * square hole. Vertices sit on whole and half coordinates.
+	 */
+	private MultiPolygon multiPolygon(CoordinateStore store) {
+		List<Coordinate> battlements = new ArrayList<>();
+		battlements.add(new Coordinate(0, 0));
+		battlements.add(new Coordinate(40, 0));
+		for (int k = 20; k > 0; k--) {
+			double y = k % 2 == 0 ? 40 : 36;
+			battlements.add(new Coordinate(2 * k, y));
+			battlements.add(new Coordinate(2 * k - 2, y));
+		}
+		battlements.add(new Coordinate(0, 0));
+		Polygon first = geometryFactory.createPolygon(ring(store, battlements), new LinearRing[] {
+				ring(store, rectangle(4, 4, 12, 12)),
+				ring(store, List.of(new Coordinate(20, 8), new Coordinate(26, 14), new Coordinate(20, 20),
+						new Coordinate(14, 14), new Coordinate(20, 8))),
+				ring(store, rectangle(28, 20, 36, 30)) });
+
+		List<Coordinate> round = new ArrayList<>();
+		for (int i = 0; i < 48; i++) {
+			double angle = 2 * Math.PI * i / 48;
+			round.add(new Coordinate(60 + Math.round(30 * Math.cos(angle)) / 2.0,
+					20 + Math.round(30 * Math.sin(angle)) / 2.0));
+		}
+		round.add(round.get(0));
+		Polygon second = geometryFactory.createPolygon(ring(store, round),
+				new LinearRing[] { ring(store, rectangle(56, 16, 64, 24)) });
+
+		return geometryFactory.createMultiPolygon(new Polygon[] { first, second });
+	}
+
+	private static List<Coordinate> rectangle(double minX, double minY, double maxX, double maxY) {
+		return List.of(new Coordinate(minX, minY), new Coordinate(maxX, minY), new Coordinate(maxX, maxY),
+				new Coordinate(minX, maxY), new Coordinate(minX, minY));
+	}
+
+	private LinearRing ring(CoordinateStore store, List<Coordinate> coordinates) {
+		double[] xy = new double[coordinates.size() * 2];
+		for (int i = 0; i < coordinates.size(); i++) {
+			xy[2 * i] = coordinates.get(i).x;
+			xy[2 * i + 1] = coordinates.get(i).y;
+		}
+		return geometryFactory.createLinearRing(store.create(xy, xy.length));
+	}
+
+	@Test
+	void agreesWithJtsOnRandomPoints() {
+		assertAgreesOnRandomPoints(new BandedPointInAreaLocator(geometry));
+	}
+
+	@Test
+	void agreesWithJtsOnOffHeapRings() {
+		assertAgreesOnRandomPoints(new BandedPointInAreaLocator(multiPolygon(new OffHeapCoordinateStore())));
+	}
+
+	private void assertAgreesOnRandomPoints(BandedPointInAreaLocator locator) {
+		Envelope area = new Envelope(geometry.getEnvelopeInternal());
+		area.expandBy(2);
+		Random random = new Random(42);
+		int inside = 0;
+		for (int i = 0; i < 20_000; i++) {
+			Coordinate point = new Coordinate(area.getMinX() + random.nextDouble() * area.getWidth(),
+					area.getMinY() + random.nextDouble() * area.getHeight());
+			int location = locator.locate(point.x, point.y);
+			assertThat(location).as("%s", point).isEqualTo(reference.locate(point));
+			assertThat(location == Location.INTERIOR).as("%s", point)
+					.isEqualTo(geometry.contains(geometryFactory.createPoint(point)));
+			if (location == Location.INTERIOR) {
+				inside++;
+			}
+		}
+		assertThat(inside).isGreaterThan(1_000);
+	}
+
+	@Test
+	void putsEveryVertexOnTheBoundary() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		for (Coordinate vertex : geometry.getCoordinates()) {
+			assertThat(locator.locate(vertex.x, vertex.y)).as("%s", vertex).isEqualTo(Location.BOUNDARY);
+		}
+	}
+
+	@Test
+	void agreesWithJtsAlongHorizontalEdges() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		assertThat(locator.locate(21, 40)).isEqualTo(Location.BOUNDARY);
+		assertThat(locator.locate(23, 36)).isEqualTo(Location.BOUNDARY);
+		assertThat(locator.locate(8, 4)).isEqualTo(Location.BOUNDARY);
+
+		// Rays along the y of every vertex run through vertices and along edges
+		TreeSet<Double> rows = new TreeSet<>();
+		for (Coordinate vertex : geometry.getCoordinates()) {
+			rows.add(vertex.y);
+		}
+		assertAgreesAlongRows(locator, rows);
+	}
+
+	@Test
+	void agreesWithJtsOnBandBoundaries() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		Envelope envelope = geometry.getEnvelopeInternal();
+		int segments = 0;
+		for (int i = 0; i < geometry.getNumGeometries(); i++) {
+			Polygon polygon = (Polygon) geometry.getGeometryN(i);
+			segments += polygon.getExteriorRing().getNumPoints() - 1;
+			for (int k = 0; k < polygon.getNumInteriorRing(); k++) {
+				segments += polygon.getInteriorRingN(k).getNumPoints() - 1;
+			}
+		}
+		// As the locator splits its envelope
+		int bands = Math.max(1, segments / 8);
+		double bandHeight = envelope.getHeight() / bands;
+		assertThat(bands).isGreaterThan(4);
+
+		TreeSet<Double> rows = new TreeSet<>();
+		for (int b = 0; b <= bands; b++) {
+			double y = envelope.getMinY() + b * bandHeight;
+			rows.add(y);
+			rows.add(Math.nextDown(y));
+			rows.add(Math.nextUp(y));
+		}
+		assertAgreesAlongRows(locator, rows);
+	}
+
+	private void assertAgreesAlongRows(BandedPointInAreaLocator locator, Iterable<Double> rows) {
+		Envelope envelope = geometry.getEnvelopeInternal();
+		for (double y : rows) {
+			for (double x = envelope.getMinX() - 1; x <= envelope.getMaxX() + 1; x += 0.25) {
+				assertThat(locator.locate(x, y)).as("(%s, %s)", x, y)
+						.isEqualTo(reference.locate(new Coordinate(x, y)));
+			}
+		}
+	}
+
+	@Test
+	void neverContainsRectanglesTouchingARing() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		Geometry boundary = geometry.getBoundary();
+
+		assertThat(locator.containsRectangle(new Envelope(1, 3, 14, 16))).isTrue();
+		// Along an edge of the square hole, on its corner, along the shell, in a battlement notch
+		assertThat(locator.containsRectangle(new Envelope(12, 14, 5, 7))).isFalse();
+		assertThat(locator.containsRectangle(new Envelope(12, 13, 12, 13))).isFalse();
+		assertThat(locator.containsRectangle(new Envelope(20, 22, 0, 2))).isFalse();
+		assertThat(locator.containsRectangle(new Envelope(2, 4, 34, 36))).isFalse();
+
+		// Snapped to the whole-number grid the rectilinear edges lie on, so many touch
+		Random random = new Random(7);
+		int contained = 0;
+		for (int i = 0; i < 20_000; i++) {
+			int minX = random.nextInt(78) - 1;
+			int minY = random.nextInt(42) - 1;
+			Envelope rectangle = new Envelope(minX, minX + 1 + random.nextInt(4), minY, minY + 1 + random.nextInt(4));
+			if (locator.containsRectangle(rectangle)) {
+				Geometry shape = geometryFactory.toGeometry(rectangle);
+				assertThat(boundary.intersects(shape)).as("%s", rectangle).isFalse();
+				assertThat(geometry.contains(shape)).as("%s", rectangle).isTrue();
+				contained++;
+			}
+		}
+		assertThat(contained).isGreaterThan(100);
+	}
+
+	@Test
+	void findsBoundaryWithinDistance() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		Geometry boundary = geometry.getBoundary();
+		Envelope area = new Envelope(geometry.getEnvelopeInternal());
+		area.expandBy(3);
+		Random random = new Random(11);
+		for (int i = 0; i < 5_000; i++) {
+			double x = area.getMinX() + random.nextDouble() * area.getWidth();
+			double y = area.getMinY() + random.nextDouble() * area.getHeight();
+			double distance = random.nextDouble() * 2;
+			assertThat(locator.isNear(x, y, distance)).as("(%s, %s) within %s", x, y, distance)
+					.isEqualTo(boundary.isWithinDistance(geometryFactory.createPoint(new Coordinate(x, y)), distance));
+		}
+	}
+
+	@Test
+	void measuresDistanceUpToTheBound() {
+		BandedPointInAreaLocator locator = new BandedPointInAreaLocator(geometry);
+		Envelope area = new Envelope(geometry.getEnvelopeInternal());
+		area.expandBy(3);
+		Random random = new Random(13);
+		for (double xScale : new double[] { 1, 0.5 }) {
+			// The locator scales x differences, as if the geometry were drawn narrower
+			Geometry scaled = AffineTransformation.scaleInstance(xScale, 1).transform(geometry.getBoundary());
+			for (int i = 0; i < 5_000; i++) {
+				double x = area.getMinX() + random.nextDouble() * area.getWidth();
+				double y = area.getMinY() + random.nextDouble() * area.getHeight();
+				double bound = random.nextDouble() * 4;
+				double expected = scaled.distance(geometryFactory.createPoint(new Coordinate(x * xScale, y)));
+				double distance = locator.distance(x, y, xScale, bound);
+				if (expected <= bound) {
+					assertThat(distance).as("(%s, %s) scaled by %s", x, y, xScale).isCloseTo(expected, within(1e-9));
+				} else {
+					assertThat(distance).as("(%s, %s) scaled by %s", x, y, xScale).isGreaterThan(bound);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.bigboi.geojson.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import com.bigboi.geojson.models.AdminRegion;
+
+class InteriorGridTests {
+	private final WKTReader wkt = new WKTReader(new GeometryFactory());
+
+	/**
+	 * Four regions tiling a 20 x 15 country: one with a hole, the enclave
+	 * filling that hole, a neighbour sharing a straight edge and one along a
+	 * slanted edge. Shared edges run along quadrant lines of the grid.
+	 */
+	private List<AdminRegion> regions() throws ParseException {
+		return List.of(
+				region("MULTIPOLYGON (((0 0, 10 0, 10 10, 5 12, 0 10, 0 0),"
+						+ " (2.5 2.5, 7.5 2.5, 7.5 7.5, 2.5 7.5, 2.5 2.5)))", "West"),
+				region("MULTIPOLYGON (((2.5 2.5, 7.5 2.5, 7.5 7.5, 2.5 7.5, 2.5 2.5)))", "Enclave"),
+				region("MULTIPOLYGON (((10 0, 20 0, 20 10, 10 10, 10 0)))", "East"),
+				region("MULTIPOLYGON (((0 10, 5 12, 10 10, 20 10, 20 15, 0 15, 0 10)))", "North"));
+	}
+
+	private AdminRegion region(String polygon, String name) throws ParseException {
+		return new AdminRegion("XYZ", (MultiPolygon) wkt.read(polygon), Map.of("country", "Xyzland", "level_1", name));
+	}
+
+	@Test
+	void interiorLeavesHoldOnlyPointsOfTheirRegion() throws ParseException {
+		List<AdminRegion> regions = regions();
+		InteriorGrid grid = InteriorGrid.build(regions, new Envelope(0, 20, 0, 15), 10, 1L << 20);
+
+		assertThat(grid.getInteriorLeaves()).isGreaterThan(0);
+		assertMatchesRegions(grid, regions);
+	}
+
+	@Test
+	void staysCorrectWhenTheBudgetRunsOut() throws ParseException {
+		List<AdminRegion> regions = regions();
+		// Room for the root and a couple of splits only
+		InteriorGrid grid = InteriorGrid.build(regions, new Envelope(0, 20, 0, 15), 10,
+				12L * InteriorGrid.BYTES_PER_NODE);
+
+		assertThat(grid.getNodeCount()).isLessThan(13);
+		assertMatchesRegions(grid, regions);
+
+		InteriorGrid none = InteriorGrid.build(regions, new Envelope(0, 20, 0, 15), 10, 0);
+		assertThat(none.getNodeCount()).isEqualTo(1);
+		assertMatchesRegions(none, regions);
+	}
+
+	private static void assertMatchesRegions(InteriorGrid grid, List<AdminRegion> regions) {
+		List<double[]> points = new ArrayList<>();
+		Random random = new Random(3);
+		for (int i = 0; i < 20_000; i++) {
+			points.add(new double[] { -1 + random.nextDouble() * 22, -1 + random.nextDouble() * 17 });
+		}
+		// On region edges and the quadrant lines of the first levels
+		for (double x = -0.5; x <= 20.5; x += 0.3125) {
+			for (double y = -0.5; y <= 15.5; y += 0.234375) {
+				points.add(new double[] { x, y });
+			}
+		}
+
+		for (double[] point : points) {
+			double x = point[0];
+			double y = point[1];
+			AdminRegion containing = null;
+			for (AdminRegion region : regions) {
+				if (region.contains(x, y)) {
+					assertThat(containing).as("(%s, %s) in two regions", x, y).isNull();
+					containing = region;
+				}
+			}
+
+			AdminRegion interior = grid.interiorAt(x, y);
+			List<AdminRegion> candidates = grid.candidatesAt(x, y);
+			if (interior != null) {
+				assertThat(interior).as("(%s, %s)", x, y).isSameAs(containing);
+				assertThat(candidates).as("(%s, %s)", x, y).isEmpty();
+			} else if (containing != null) {
+				assertThat(candidates).as("(%s, %s)", x, y).contains(containing);
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.bigboi.geojson.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class GeoJsonGeometriesTests {
+	private static final String SQUARE = "[[0,0],[2,0],[2,2],[0,2],[0,0]]";
+	private static final String HOLE = "[[0.5,0.5],[1,0.5],[1,1],[0.5,1],[0.5,0.5]]";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final GeometryFactory geometryFactory = new GeometryFactory();
+
+	private Geometry read(String json) throws Exception {
+		JsonNode node = objectMapper.readTree(json);
+		return GeoJsonGeometries.read(node, geometryFactory);
+	}
+
+	private void assertRejected(String json, String message) {
+		assertThatThrownBy(() -> read(json)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining(message);
+	}
+
+	@Test
+	void readsPolygonsWithHoles() throws Exception {
+		Geometry polygon = read("{\"type\":\"Polygon\",\"coordinates\":[" + SQUARE + "," + HOLE + "]}");
+
+		assertThat(polygon.getGeometryType()).isEqualTo("Polygon");
+		assertThat(polygon.getArea()).isEqualTo(4 - 0.25);
+		assertThat(polygon.isValid()).isTrue();
+	}
+
+	@Test
+	void readsMultiPolygonsAndFeatures() throws Exception {
+		Geometry multi = read("{\"type\":\"MultiPolygon\",\"coordinates\":[[" + SQUARE + "],"
+				+ "[[[5,5],[6,5],[6,6],[5,5]]]]}");
+		assertThat(multi.getNumGeometries()).isEqualTo(2);
+
+		Geometry feature = read("{\"type\":\"Feature\",\"properties\":{},\"geometry\":"
+				+ "{\"type\":\"Polygon\",\"coordinates\":[" + SQUARE + "]}}");
+		assertThat(feature.getArea()).isEqualTo(4);
+	}
+
+	@Test
+	void rejectsOtherGeometryTypes() {
+		assertRejected("{\"type\":\"Point\",\"coordinates\":[0,0]}", "Unsupported geometry type 'Point'");
+		assertRejected("[0,0]", "Expected a GeoJSON Polygon");
+		assertRejected("{\"type\":\"Feature\",\"properties\":{}}", "Expected a GeoJSON Polygon");
+	}
+
+	@Test
+	void rejectsMalformedRings() {
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[]}", "at least an exterior ring");
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[0,0]]]}", "at least four positions");
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[1,1],[0,1]]]}", "closed");
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[1,\"1\"],[0,0]]]}",
+				"[longitude, latitude] number pairs");
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1],[1,1],[0,0]]]}",
+				"[longitude, latitude] number pairs");
+		assertRejected("{\"type\":\"Polygon\",\"coordinates\":[" + SQUARE + ",[[0,0]]]}", "at least four positions");
+	}
+}
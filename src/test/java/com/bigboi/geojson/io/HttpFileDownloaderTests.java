@@ -0,0 +1,153 @@
+package com.bigboi.geojson.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class HttpFileDownloaderTests {
+	private static final String ETAG = "\"v1\"";
+
+	@TempDir
+	Path dir;
+
+	private final byte[] body = "{\"type\":\"FeatureCollection\",\"features\":[]}".repeat(1000)
+			.getBytes(StandardCharsets.UTF_8);
+	private final AtomicInteger fullResponses = new AtomicInteger();
+	private HttpServer server;
+	private HttpFileDownloader downloader;
+	private URI uri;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/gadm41_XYZ_1.json", this::serve);
+		server.start();
+		uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/gadm41_XYZ_1.json");
+		downloader = new HttpFileDownloader(HttpClient.newHttpClient(), Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().set("ETag", ETAG);
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.sendResponseHeaders(304, -1);
+		} else if (range != null && ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+			int from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+			if (from >= body.length) {
+				exchange.getResponseHeaders().set("Content-Range", "bytes */" + body.length);
+				exchange.sendResponseHeaders(416, -1);
+				exchange.close();
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Range",
+					"bytes " + from + "-" + (body.length - 1) + "/" + body.length);
+			send(exchange, 206, Arrays.copyOfRange(body, from, body.length));
+		} else {
+			fullResponses.incrementAndGet();
+			send(exchange, 200, body);
+		}
+		exchange.close();
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	@Test
+	void downloadsThenRevalidates() throws Exception {
+		Path target = dir.resolve("gadm41_XYZ_1.json");
+
+		HttpFileDownloader.Result first = downloader.download(uri, target);
+		assertThat(first.outcome()).isEqualTo(HttpFileDownloader.Outcome.DOWNLOADED);
+		assertThat(Files.readAllBytes(target)).isEqualTo(body);
+		assertThat(dir.resolve("gadm41_XYZ_1.json.part")).doesNotExist();
+
+		HttpFileDownloader.Result second = downloader.download(uri, target);
+		assertThat(second.outcome()).isEqualTo(HttpFileDownloader.Outcome.NOT_MODIFIED);
+		assertThat(fullResponses).hasValue(1);
+	}
+
+	@Test
+	void resumesPartialDownload() throws Exception {
+		Path target = dir.resolve("gadm41_XYZ_1.json");
+		Files.write(dir.resolve("gadm41_XYZ_1.json.part"), Arrays.copyOf(body, body.length / 3));
+		Files.writeString(dir.resolve("gadm41_XYZ_1.json.meta"), "part.etag=" + ETAG + "\n");
+
+		HttpFileDownloader.Result result = downloader.download(uri, target);
+
+		assertThat(result.outcome()).isEqualTo(HttpFileDownloader.Outcome.RESUMED);
+		assertThat(result.bytes()).isEqualTo(body.length - body.length / 3);
+		assertThat(Files.readAllBytes(target)).isEqualTo(body);
+		assertThat(fullResponses).hasValue(0);
+	}
+
+	@Test
+	void restartsWhenRemoteFileChanged() throws Exception {
+		Path target = dir.resolve("gadm41_XYZ_1.json");
+		Files.write(dir.resolve("gadm41_XYZ_1.json.part"), "stale bytes".getBytes(StandardCharsets.UTF_8));
+		Files.writeString(dir.resolve("gadm41_XYZ_1.json.meta"), "part.etag=\"v0\"\n");
+
+		HttpFileDownloader.Result result = downloader.download(uri, target);
+
+		assertThat(result.outcome()).isEqualTo(HttpFileDownloader.Outcome.DOWNLOADED);
+		assertThat(Files.readAllBytes(target)).isEqualTo(body);
+	}
+
+	@Test
+	void finishesPartThatIsAlreadyComplete() throws Exception {
+		Path target = dir.resolve("gadm41_XYZ_1.json");
+		Files.write(dir.resolve("gadm41_XYZ_1.json.part"), body);
+		Files.writeString(dir.resolve("gadm41_XYZ_1.json.meta"), "part.etag=" + ETAG + "\n");
+
+		HttpFileDownloader.Result result = downloader.download(uri, target);
+
+		assertThat(result.outcome()).isEqualTo(HttpFileDownloader.Outcome.RESUMED);
+		assertThat(result.bytes()).isZero();
+		assertThat(Files.readAllBytes(target)).isEqualTo(body);
+		assertThat(dir.resolve("gadm41_XYZ_1.json.part")).doesNotExist();
+		assertThat(Files.readString(dir.resolve("gadm41_XYZ_1.json.meta"))).doesNotContain("part.");
+		assertThat(downloader.download(uri, target).outcome()).isEqualTo(HttpFileDownloader.Outcome.NOT_MODIFIED);
+		assertThat(fullResponses).hasValue(0);
+	}
+
+	@Test
+	void restartsWhenPartIsLongerThanRemoteFile() throws Exception {
+		Path target = dir.resolve("gadm41_XYZ_1.json");
+		byte[] tooLong = Arrays.copyOf(body, body.length + 10);
+		Files.write(dir.resolve("gadm41_XYZ_1.json.part"), tooLong);
+		Files.writeString(dir.resolve("gadm41_XYZ_1.json.meta"), "part.etag=" + ETAG + "\n");
+
+		HttpFileDownloader.Result result = downloader.download(uri, target);
+
+		assertThat(result.outcome()).isEqualTo(HttpFileDownloader.Outcome.DOWNLOADED);
+		assertThat(Files.readAllBytes(target)).isEqualTo(body);
+		assertThat(fullResponses).hasValue(1);
+		assertThat(downloader.download(uri, target).outcome()).isEqualTo(HttpFileDownloader.Outcome.NOT_MODIFIED);
+	}
+}
@@ -0,0 +1,149 @@
+package com.bigboi.geojson.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MvtEncoderTests {
+	// Clockwise on screen, y pointing down: the winding of an exterior ring
+	private static final double[] SQUARE = { 0, 0, 10, 0, 10, 10, 0, 10, 0, 0 };
+	private static final double[] SQUARE_REVERSED = { 0, 0, 0, 10, 10, 10, 10, 0, 0, 0 };
+	private static final int[] SQUARE_COMMANDS = { 9, 0, 0, 26, 20, 0, 0, 20, 19, 0, 15 };
+
+	@Test
+	void encodesPolygonAsCommands() {
+		MvtEncoder encoder = new MvtEncoder("regions", 4096);
+		assertThat(encoder.addFeature(List.of(List.of(SQUARE)), Map.of("country", "X"))).isTrue();
+
+		Message layer = layer(encoder.encode());
+		assertThat(layer.strings(1)).containsExactly("regions");
+		assertThat(layer.varints(15)).containsExactly(2L);
+		assertThat(layer.varints(5)).containsExactly(4096L);
+		Message feature = layer.messages(2).get(0);
+		assertThat(feature.varints(3)).containsExactly(3L);
+		assertThat(feature.packed(4)).containsExactly(SQUARE_COMMANDS);
+	}
+
+	@Test
+	void reversesExteriorWoundTheOtherWay() {
+		MvtEncoder encoder = new MvtEncoder("regions", 4096);
+		encoder.addFeature(List.of(List.of(SQUARE_REVERSED)), Map.of());
+
+		assertThat(layer(encoder.encode()).messages(2).get(0).packed(4)).containsExactly(SQUARE_COMMANDS);
+	}
+
+	@Test
+	void dropsRingsCollapsingOnTheGrid() {
+		MvtEncoder encoder = new MvtEncoder("regions", 4096);
+		double[] sliver = { 0, 0, 0.2, 0.1, 0.4, 0.3, 0, 0 };
+
+		assertThat(encoder.addFeature(List.of(List.of(sliver)), Map.of("country", "X"))).isFalse();
+		assertThat(encoder.encode()).isEmpty();
+	}
+
+	@Test
+	void sharesKeysAndValuesBetweenFeatures() {
+		MvtEncoder encoder = new MvtEncoder("regions", 4096);
+		encoder.addFeature(List.of(List.of(SQUARE)), Map.of("country", "X"));
+		encoder.addFeature(List.of(List.of(SQUARE)), Map.of("country", "X"));
+
+		Message layer = layer(encoder.encode());
+		assertThat(layer.strings(3)).containsExactly("country");
+		assertThat(layer.messages(4)).hasSize(1);
+		assertThat(layer.messages(2).get(1).packed(2)).containsExactly(0, 0);
+	}
+
+	private static Message layer(byte[] tile) {
+		return new Message(tile).messages(3).get(0);
+	}
+
+	/** Just enough protobuf decoding to read a tile back. */
+	private static final class Message {
+		private final byte[] bytes;
+
+		Message(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		List<Long> varints(int field) {
+			List<Long> result = new ArrayList<>();
+			forEach(field, (reader, wireType) -> result.add(reader.varint()));
+			return result;
+		}
+
+		List<String> strings(int field) {
+			List<String> result = new ArrayList<>();
+			forEach(field, (reader, wireType) -> result.add(new String(reader.bytes())));
+			return result;
+		}
+
+		List<Message> messages(int field) {
+			List<Message> result = new ArrayList<>();
+			forEach(field, (reader, wireType) -> result.add(new Message(reader.bytes())));
+			return result;
+		}
+
+		int[] packed(int field) {
+			List<Long> values = new ArrayList<>();
+			forEach(field, (reader, wireType) -> {
+				Reader packed = new Reader(reader.bytes());
+				while (packed.position < packed.bytes.length) {
+					values.add(packed.varint());
+				}
+			});
+			return values.stream().mapToInt(Long::intValue).toArray();
+		}
+
+		private void forEach(int field, FieldVisitor visitor) {
+			Reader reader = new Reader(bytes);
+			while (reader.position < bytes.length) {
+				long key = reader.varint();
+				int wireType = (int) (key & 7);
+				if ((key >>> 3) == field) {
+					visitor.visit(reader, wireType);
+				} else if (wireType == 0) {
+					reader.varint();
+				} else {
+					reader.bytes();
+				}
+			}
+		}
+	}
+
+	private interface FieldVisitor {
+		void visit(Reader reader, int wireType);
+	}
+
+	private static final class Reader {
+		private final byte[] bytes;
+		private int position;
+
+		Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		long varint() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		byte[] bytes() {
+			int length = (int) varint();
+			byte[] result = new byte[length];
+			System.arraycopy(bytes, position, result, 0, length);
+			position += length;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.bigboi.geojson.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.WKTReader;
+import org.springframework.core.io.FileSystemResource;
+
+import com.bigboi.geojson.geometry.HeapCoordinateStore;
+import com.bigboi.geojson.models.AdminRegion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RegionSnapshotStoreTests {
+	private static final String SOURCE = "gadm41_XYZ_1.json";
+
+	@TempDir
+	Path dir;
+
+	private final GeometryFactory geometryFactory = new GeometryFactory();
+	private RegionSnapshotStore store;
+	private FileSystemResource source;
+	private List<AdminRegion> regions;
+	private List<Map<String, Object>> originals;
+
+	@BeforeEach
+	void writeSnapshot() throws Exception {
+		store = new RegionSnapshotStore(dir.resolve("snapshots"), geometryFactory, new ObjectMapper(),
+				new HeapCoordinateStore());
+		Path file = dir.resolve(SOURCE);
+		Files.writeString(file, "{\"type\":\"FeatureCollection\",\"features\":[]}", StandardCharsets.UTF_8);
+		source = new FileSystemResource(file);
+
+		WKTReader wkt = new WKTReader(geometryFactory);
+		regions = List.of(
+				new AdminRegion("XYZ", (MultiPolygon) wkt.read("MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0),"
+						+ " (2 2, 2 4, 4 4, 4 2, 2 2), (6 6, 6 8, 8 8, 8 6, 6 6)), ((20 0, 30 0, 25 5, 20 0)))"),
+						Map.of("country", "Xyzland", "level_1", "North")),
+				new AdminRegion("XYZ", (MultiPolygon) wkt.read("MULTIPOLYGON (((10 0, 20 0, 20 10, 10 10, 10 0)))"),
+						Map.of("country", "Xyzland", "level_1", "South")));
+
+		Map<String, Object> north = new LinkedHashMap<>();
+		north.put("NAME_1", "North");
+		north.put("population", 1_250_000);
+		north.put("code", 9_000_000_000L);
+		north.put("area", 123.5);
+		north.put("capital", true);
+		north.put("note", null);
+		north.put("aliases", List.of("N", "Nord"));
+		north.put("meta", Map.of("source", "survey", "year", 2020));
+		Map<String, Object> south = new LinkedHashMap<>();
+		south.put("NAME_1", "South");
+		south.put("capital", false);
+		originals = List.of(north, south);
+
+		store.write(SOURCE, SourceFingerprint.compute(source), regions, originals);
+	}
+
+	@Test
+	void readsRegionsBack() throws Exception {
+		List<AdminRegion> read = store.read(SOURCE, "XYZ", source).orElseThrow();
+
+		assertThat(read).hasSize(regions.size());
+		for (int r = 0; r < regions.size(); r++) {
+			assertThat(read.get(r).getCountryCode()).isEqualTo("XYZ");
+			assertThat(read.get(r).getProperties()).isEqualTo(regions.get(r).getProperties());
+			assertThat(read.get(r).getGeometry().equalsExact(regions.get(r).getGeometry())).isTrue();
+			assertThat(read.get(r).getOriginalProperties()).isEqualTo(originals.get(r));
+		}
+		assertThat(read.get(0).getGeometry().getNumGeometries()).isEqualTo(2);
+		assertThat(((Polygon) read.get(0).getGeometry().getGeometryN(0)).getNumInteriorRing()).isEqualTo(2);
+	}
+
+	@Test
+	void readsSingleRegionsThroughTheMapping() throws Exception {
+		RegionSnapshotStore.RegionReader reader = store
+				.openRegions(SOURCE, SourceFingerprint.compute(source))
+				.orElseThrow();
+
+		// Out of order, so record offsets are found rather than followed
+		assertThat(reader.read(1).equalsExact(regions.get(1).getGeometry())).isTrue();
+		assertThat(reader.read(0).equalsExact(regions.get(0).getGeometry())).isTrue();
+		assertThat(reader.readOriginalProperties(1)).isEqualTo(originals.get(1));
+		Map<String, Object> north = reader.readOriginalProperties(0);
+		assertThat(north).isEqualTo(originals.get(0));
+		assertThat(new ArrayList<>(north.keySet())).containsExactlyElementsOf(originals.get(0).keySet());
+		assertThat(north.get("population")).isInstanceOf(Integer.class);
+		assertThat(north.get("code")).isInstanceOf(Long.class);
+	}
+
+	@Test
+	void rejectsChangedSource() throws Exception {
+		SourceFingerprint written = SourceFingerprint.compute(source);
+		Files.writeString(source.getFile().toPath(), "{\"type\":\"FeatureCollection\",\"features\":[ ]}",
+				StandardCharsets.UTF_8);
+		SourceFingerprint changed = SourceFingerprint.compute(source);
+
+		assertThat(store.read(SOURCE, "XYZ", source)).isEmpty();
+		assertThat(store.openRegions(SOURCE, changed)).isEmpty();
+		assertThat(store.openRegions(SOURCE, written)).isPresent();
+		assertThat(store.readFingerprint(SOURCE).map(SourceFingerprint::getHash))
+				.hasValueSatisfying(hash -> assertThat(hash).isEqualTo(written.getHash()));
+	}
+
+	@Test
+	void rejectsSameLengthWithDifferentContents() throws Exception {
+		// Same length, new modification time: only the hash tells them apart
+		Files.writeString(source.getFile().toPath(), "{\"type\":\"FeatureCollection\",\"features\":{}}",
+				StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(source.getFile().toPath(),
+				FileTime.fromMillis(source.lastModified() + 60_000));
+
+		Optional<List<AdminRegion>> read = store.read(SOURCE, "XYZ", source);
+		assertThat(read).isEmpty();
+		assertThat(store.openRegions(SOURCE, SourceFingerprint.compute(source))).isEmpty();
+	}
+}
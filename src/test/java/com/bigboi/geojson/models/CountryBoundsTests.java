@@ -0,0 +1,39 @@
+package com.bigboi.geojson.models;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+class CountryBoundsTests {
+	private final GeometryFactory geometryFactory = new GeometryFactory();
+
+	@Test
+	void boundsACountryEntirelyAtNegativeCoordinates() {
+		// Maximums starting from Double.MIN_VALUE, the smallest positive double, would stay above the whole country
+		CountryBounds bounds = new CountryBounds();
+		bounds.updateBounds(geometryFactory.toGeometry(new Envelope(-70.5, -65, -40, -35.5)));
+		bounds.updateBounds(geometryFactory.toGeometry(new Envelope(-68, -60.25, -38, -33)));
+
+		assertThat(bounds.getEnvelope()).isEqualTo(new Envelope(-70.5, -60.25, -40, -33));
+		assertThat(bounds.containsPoint(-36, -66)).isTrue();
+		assertThat(bounds.containsPoint(-33, -60.25)).isTrue();
+		assertThat(bounds.containsPoint(-32.9, -61)).isFalse();
+		assertThat(bounds.containsPoint(0, 0)).isFalse();
+		assertThat(bounds.containsPoint(36, 66)).isFalse();
+		assertThat(bounds.getFootprint()).allSatisfy(envelope -> {
+			assertThat(envelope.getMaxX()).isLessThanOrEqualTo(-60.25);
+			assertThat(envelope.getMaxY()).isLessThanOrEqualTo(-33);
+		});
+	}
+
+	@Test
+	void hasNoEnvelopeUntilAGeometryIsAdded() {
+		CountryBounds bounds = new CountryBounds();
+
+		assertThat(bounds.getEnvelope().isNull()).isTrue();
+		assertThat(bounds.containsPoint(0, 0)).isFalse();
+		assertThat(bounds.getFootprint()).isEmpty();
+	}
+}
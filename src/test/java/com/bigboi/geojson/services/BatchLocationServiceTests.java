@@ -0,0 +1,108 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.Coordinate;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BatchLocationServiceTests {
+	private static final String POINT = "{\"latitude\":5,\"longitude\":-10}";
+
+	@TempDir
+	Path dir;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private LocationService locationService;
+	private BatchLocationService service;
+
+	@BeforeEach
+	void load() throws Exception {
+		GadmFiles.write(dir, "XYZ", 1, GadmFiles.rectangle("Xyzland", "West", -20, -10, 0, 10),
+				GadmFiles.rectangle("Xyzland", "East", 0, -10, 20, 10));
+		LocationProperties properties = GadmFiles.properties(dir);
+		properties.getBatch().setChunkSize(300);
+		properties.getBatch().setThreads(2);
+		locationService = GadmFiles.load(properties);
+		service = new BatchLocationService(locationService, properties, objectMapper);
+	}
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+		locationService.shutdown();
+	}
+
+	private static InputStream json(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void readsUpToTheLimit() throws Exception {
+		assertThat(service.readJson(json("[" + POINT + "," + POINT + "]"), 2)).hasSize(2);
+		assertThat(service.readJson(json("[]"), 2)).isEmpty();
+	}
+
+	@Test
+	void stopsReadingOneCoordinatePastTheLimit() throws Exception {
+		// Cut off after the fourth coordinate starts: never read that far
+		String body = "[" + POINT + "," + POINT + "," + POINT + ",{\"latitude\":";
+
+		List<Coordinate> coordinates = service.readJson(json(body), 2);
+
+		assertThat(coordinates).hasSize(3);
+		assertThat(coordinates.get(2).getLongitude()).isEqualTo(-10);
+	}
+
+	@Test
+	void rejectsBodiesThatAreNotAnArrayOfObjects() {
+		assertThatThrownBy(() -> service.readJson(json(POINT), 10)).isInstanceOf(JsonParseException.class)
+				.hasMessageContaining("Expected an array of coordinates");
+		assertThatThrownBy(() -> service.readJson(json("[1,2]"), 10)).isInstanceOf(JsonParseException.class);
+		assertThatThrownBy(() -> service.readJson(json("[" + POINT + ","), 10))
+				.isInstanceOf(JsonParseException.class);
+	}
+
+	@Test
+	void writesResultsInInputOrder() throws Exception {
+		List<Coordinate> coordinates = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			Coordinate coordinate = new Coordinate();
+			// Alternating sides and misses, so the spatial sort reorders every chunk
+			coordinate.setLongitude((i % 2 == 0 ? -1 : 1) * (1 + (i * 7919 % 180) / 10.0));
+			coordinate.setLatitude(i % 5 == 0 ? 50 : (i % 19) - 9);
+			coordinates.add(coordinate);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		service.writeJson(coordinates, -1, out);
+
+		JsonNode results = objectMapper.readTree(out.toByteArray());
+		assertThat(results.size()).isEqualTo(1_000);
+		for (int i = 0; i < 1_000; i++) {
+			JsonNode result = results.get(i);
+			if (i % 5 == 0) {
+				assertThat(result.isNull()).isTrue();
+			} else {
+				assertThat(result.path("properties").path("level_1").asText()).isEqualTo(i % 2 == 0 ? "West" : "East");
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.BulkGeocodeReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BulkGeocodeServiceTests {
+	@TempDir
+	Path dir;
+
+	private LocationProperties properties;
+	private LocationService locationService;
+	private BatchLocationService batchLocationService;
+	private BulkGeocodeReport report;
+
+	@BeforeEach
+	void load() throws Exception {
+		Path data = Files.createDirectories(dir.resolve("data"));
+		GadmFiles.write(data, "XYZ", 1, GadmFiles.rectangle("Xyzland", "West", -20, -10, 0, 10),
+				GadmFiles.rectangle("Xyzland", "East", 0, -10, 20, 10));
+		properties = GadmFiles.properties(data);
+		properties.getBulk().setColumns(new ArrayList<>(List.of("countryCode", "level_1")));
+		properties.getBatch().setThreads(2);
+		locationService = GadmFiles.load(properties);
+		batchLocationService = new BatchLocationService(locationService, properties, new ObjectMapper());
+	}
+
+	@AfterEach
+	void shutdown() {
+		batchLocationService.shutdown();
+		locationService.shutdown();
+	}
+
+	private List<String> geocode(String input, String inputName) throws IOException {
+		Path in = Files.writeString(dir.resolve(inputName), input, StandardCharsets.UTF_8);
+		Path out = dir.resolve("out.csv");
+		BulkGeocodeService service = new BulkGeocodeService(batchLocationService, properties);
+		try {
+			report = service.geocode(in, out);
+		} finally {
+			service.shutdown();
+		}
+		return Files.readAllLines(out, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void tagsRowsAndKeepsTheRestOfEachRowAsIs() throws Exception {
+		properties.getBulk().setChunkSize(2);
+		List<String> lines = geocode("""
+				id,name,lat,lon
+				1,"Smith, John",5,-10
+				2,"say ""hi""\",5,10
+				3,short
+				4,x,abc,10
+				5,x,95,10
+				6,x,5,500
+				7,x,50,50
+
+				8,x," -5 ",-1
+				""", "in.csv");
+
+		assertThat(lines).containsExactly(
+				"id,name,lat,lon,countryCode,level_1",
+				"1,\"Smith, John\",5,-10,XYZ,West",
+				"2,\"say \"\"hi\"\"\",5,10,XYZ,East",
+				"3,short,,",
+				"4,x,abc,10,,",
+				"5,x,95,10,,",
+				"6,x,5,500,,",
+				"7,x,50,50,,",
+				"8,x,\" -5 \",-1,XYZ,West");
+		assertThat(report.getRows()).isEqualTo(8);
+		assertThat(report.getMatched()).isEqualTo(3);
+		// Too short, not a number, latitude and longitude off the globe; row 7 is valid but in no region
+		assertThat(report.getInvalid()).isEqualTo(4);
+	}
+
+	@Test
+	void keepsInputOrderAcrossChunks() throws Exception {
+		properties.getBulk().setChunkSize(7);
+		StringBuilder input = new StringBuilder("id;lon;lat\n");
+		for (int i = 0; i < 1_000; i++) {
+			// Alternating sides, so the spatial sort within a chunk reorders them
+			double lon = (i % 2 == 0 ? -1 : 1) * (1 + (i * 7919 % 180) / 10.0);
+			input.append(i).append(';').append(lon).append(';').append((i % 19) - 9).append('\n');
+		}
+		properties.getBulk().setDelimiter(";");
+
+		List<String> lines = geocode(input.toString(), "in.csv");
+
+		assertThat(lines).hasSize(1_001);
+		for (int i = 0; i < 1_000; i++) {
+			String[] fields = lines.get(i + 1).split(";");
+			assertThat(fields[0]).isEqualTo(Integer.toString(i));
+			assertThat(fields[4]).isEqualTo(i % 2 == 0 ? "West" : "East");
+		}
+		assertThat(report.getMatched()).isEqualTo(1_000);
+	}
+
+	@Test
+	void readsColumnsByNumberWithoutAHeader() throws Exception {
+		properties.getBulk().setHeader(false);
+		properties.getBulk().setLatColumn("1");
+		properties.getBulk().setLonColumn("0");
+
+		List<String> lines = geocode("-10,5\n10,5\n", "in.csv");
+
+		assertThat(lines).containsExactly("-10,5,XYZ,West", "10,5,XYZ,East");
+	}
+
+	@Test
+	void namesTheSettingWhenAColumnNumberIsNotOne() {
+		properties.getBulk().setHeader(false);
+
+		assertThatThrownBy(() -> geocode("5,-10\n", "in.csv")).isInstanceOf(IOException.class)
+				.hasMessageContaining("app.location.bulk.lat-column")
+				.hasMessageContaining("\"lat\"");
+	}
+
+	@Test
+	void reportsAHeaderWithoutTheColumn() {
+		properties.getBulk().setLatColumn("latitude");
+
+		assertThatThrownBy(() -> geocode("lat,lon\n5,-10\n", "in.csv")).isInstanceOf(IOException.class)
+				.hasMessageContaining("No column latitude");
+	}
+
+	@Test
+	void splitsQuotedFields() {
+		assertThat(BulkGeocodeService.split("a,\"b,c\",d", ',', 10)).containsExactly("a", "b,c", "d");
+		assertThat(BulkGeocodeService.split("\"say \"\"hi\"\"\",x", ',', 10)).containsExactly("say \"hi\"", "x");
+		assertThat(BulkGeocodeService.split("a,,", ',', 10)).containsExactly("a", "", "");
+		assertThat(BulkGeocodeService.split("a,b,c,d", ',', 2)).containsExactly("a", "b");
+		assertThat(BulkGeocodeService.split("a\tb", '\t', 10)).containsExactly("a", "b");
+	}
+}
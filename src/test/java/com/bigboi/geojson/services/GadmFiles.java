@@ -0,0 +1,76 @@
+package com.bigboi.geojson.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.metrics.LocationMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** Small GADM-style country files, and a location service loading them as the application does. */
+final class GadmFiles {
+	private GadmFiles() {
+	}
+
+	/** A level 1 feature covering a rectangle. */
+	static String rectangle(String country, String name, double minLon, double minLat, double maxLon, double maxLat) {
+		return feature(country, name, box(minLon, minLat, maxLon, maxLat));
+	}
+
+	/** A level 2 feature covering a rectangle, inside the level 1 region {@code parent}. */
+	static String district(String country, String parent, String name, double minLon, double minLat, double maxLon,
+			double maxLat) {
+		return "{\"type\":\"Feature\",\"properties\":{\"GID_2\":\"" + name + ".1\",\"COUNTRY\":\"" + country
+				+ "\",\"NAME_1\":\"" + parent + "\",\"NAME_2\":\"" + name
+				+ "\"},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":" + box(minLon, minLat, maxLon, maxLat)
+				+ "}}";
+	}
+
+	private static String box(double minLon, double minLat, double maxLon, double maxLat) {
+		return "[[[" + minLon + "," + minLat + "],[" + maxLon + "," + minLat + "],[" + maxLon + "," + maxLat + "],["
+				+ minLon + "," + maxLat + "],[" + minLon + "," + minLat + "]]]";
+	}
+
+	/** A level 1 feature with the given Polygon coordinates. */
+	static String feature(String country, String name, String polygonCoordinates) {
+		return "{\"type\":\"Feature\",\"properties\":{\"GID_1\":\"" + name + ".1\",\"COUNTRY\":\"" + country
+				+ "\",\"NAME_1\":\"" + name + "\"},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+				+ polygonCoordinates + "}}";
+	}
+
+	/** Writes {@code gadm41_<code>_<level>.json}. */
+	static Path write(Path dir, String countryCode, int level, String... features) throws IOException {
+		Path file = dir.resolve("gadm41_" + countryCode + "_" + level + ".json");
+		Files.writeString(file, "{\"type\":\"FeatureCollection\",\"features\":[" + String.join(",", features) + "]}",
+				StandardCharsets.UTF_8);
+		return file;
+	}
+
+	/** Settings reading every file in {@code dir}, with snapshots off. */
+	static LocationProperties properties(Path dir) {
+		LocationProperties properties = new LocationProperties();
+		properties.setDataPattern("file:" + dir + "/*.json");
+		properties.getSnapshot().setEnabled(false);
+		properties.setLoadThreads(2);
+		return properties;
+	}
+
+	static LocationService load(Path dir, Consumer<LocationProperties> settings) throws IOException {
+		LocationProperties properties = properties(dir);
+		settings.accept(properties);
+		return load(properties);
+	}
+
+	static LocationService load(LocationProperties properties) throws IOException {
+		LocationService service = new LocationService(new GeometryFactory(), properties,
+				new LocationCache(properties, new SimpleMeterRegistry()), new LocationMetrics(new SimpleMeterRegistry()));
+		service.init();
+		return service;
+	}
+}
@@ -0,0 +1,130 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.GeoJsonFile;
+
+class GeoJsonServiceTests {
+	private static final String NAME = "gadm41_XYZ_1.json";
+
+	@TempDir
+	Path dir;
+
+	private Path data;
+	private Path variants;
+	private GeoJsonService service;
+
+	@BeforeEach
+	void writeFiles() throws Exception {
+		data = Files.createDirectories(dir.resolve("data"));
+		variants = Files.createDirectories(dir.resolve("variants"));
+		Files.writeString(data.resolve(NAME), "{\"type\":\"FeatureCollection\",\"features\":[]}",
+				StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(data.resolve(NAME), FileTime.fromMillis(1_000_000));
+	}
+
+	@AfterEach
+	void shutdown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	private GeoJsonFile index() {
+		LocationProperties properties = new LocationProperties();
+		properties.getFiles().setDir(data.toString());
+		properties.getFiles().setVariantDir(variants.toString());
+		properties.getFiles().setPrecompress(false);
+		service = new GeoJsonService(properties, event -> {
+		});
+		service.init();
+		return service.getGeoJsonFile(NAME).orElseThrow();
+	}
+
+	private Path variant(String extension, long modified) throws Exception {
+		Path variant = Files.write(variants.resolve(NAME + extension), new byte[] { 1, 2, 3 });
+		Files.setLastModifiedTime(variant, FileTime.fromMillis(modified));
+		return variant;
+	}
+
+	@Test
+	void acceptsCodingsByQuality() {
+		assertThat(GeoJsonService.accepts("gzip", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("deflate, GZip", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("gzip;q=0.5", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("gzip; Q = 0.001", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("gzip;q=0", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts("gzip;q=0.000", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts("gzip;q=nonsense", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts("br", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts("", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts(null, "gzip")).isFalse();
+	}
+
+	@Test
+	void leavesUnnamedCodingsToTheWildcard() {
+		assertThat(GeoJsonService.accepts("*", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("br, *;q=0.1", "gzip")).isTrue();
+		assertThat(GeoJsonService.accepts("*;q=0", "gzip")).isFalse();
+		// Named outright either way, whatever the wildcard says
+		assertThat(GeoJsonService.accepts("gzip;q=0, *", "gzip")).isFalse();
+		assertThat(GeoJsonService.accepts("*;q=0, gzip", "gzip")).isTrue();
+	}
+
+	@Test
+	void servesTheSmallestAcceptedVariantWithItsOwnEtag() throws Exception {
+		Path gzip = variant(".gz", 1_000_000);
+		Path brotli = variant(".br", 2_000_000);
+		GeoJsonFile file = index();
+
+		GeoJsonService.Representation plain = service.select(file, null);
+		assertThat(plain.path()).isEqualTo(data.resolve(NAME));
+		assertThat(plain.contentEncoding()).isNull();
+		assertThat(plain.etag()).isEqualTo(file.getEtag());
+
+		GeoJsonService.Representation gzipped = service.select(file, "gzip");
+		assertThat(gzipped.path()).isEqualTo(gzip);
+		assertThat(gzipped.contentEncoding()).isEqualTo("gzip");
+		assertThat(gzipped.etag()).endsWith("-gzip\"").isNotEqualTo(file.getEtag());
+
+		GeoJsonService.Representation brotlied = service.select(file, "gzip, br");
+		assertThat(brotlied.path()).isEqualTo(brotli);
+		assertThat(brotlied.contentEncoding()).isEqualTo("br");
+		assertThat(brotlied.etag()).endsWith("-br\"");
+		assertThat(brotlied.lastModified()).isEqualTo(file.getLastModified());
+
+		assertThat(service.select(file, "gzip, br;q=0").path()).isEqualTo(gzip);
+		assertThat(service.select(file, "identity").path()).isEqualTo(data.resolve(NAME));
+	}
+
+	@Test
+	void ignoresVariantsOlderThanTheirFile() throws Exception {
+		variant(".gz", 999_000);
+		GeoJsonFile file = index();
+
+		assertThat(file.getGzipPath()).isNull();
+		assertThat(file.getGzipSize()).isEqualTo(-1);
+		assertThat(service.select(file, "gzip").contentEncoding()).isNull();
+	}
+
+	@Test
+	void skipsFilesThatCannotBeRead() throws Exception {
+		// Listed, but gone by the time its size is read
+		Files.createSymbolicLink(data.resolve("gadm41_ABC_1.json"), dir.resolve("missing.json"));
+
+		index();
+
+		assertThat(service.getAllGeoJsonFiles()).extracting(GeoJsonFile::getName).containsExactly(NAME);
+	}
+}
@@ -0,0 +1,97 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.AdminRegion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocationCacheTests {
+
+	private static LocationCache cache(int precision) {
+		LocationProperties properties = new LocationProperties();
+		properties.getCache().setEnabled(true);
+		properties.getCache().setPrecision(precision);
+		return new LocationCache(properties, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void cellOfAKeyHoldsThePointAtTheGridEdges() {
+		for (int precision : new int[] { 1, 2, 18, 30 }) {
+			LocationCache cache = cache(precision);
+			List<double[]> points = new ArrayList<>();
+			double[] lats = { -90, Math.nextUp(-90.0), -1e-300, -0.0, 0, 1e-300, Math.nextDown(90.0), 90 };
+			double[] lons = { -180, Math.nextUp(-180.0), -1e-300, -0.0, 0, 1e-300, Math.nextDown(180.0), 180 };
+			for (double lat : lats) {
+				for (double lon : lons) {
+					points.add(new double[] { lat, lon });
+				}
+			}
+
+			// Either side of and on random cell edges
+			Random random = new Random(precision);
+			double cellWidth = 360.0 / (1L << precision);
+			double cellHeight = 180.0 / (1L << precision);
+			for (int i = 0; i < 2_000; i++) {
+				double lonEdge = random.nextInt(1 << precision) * cellWidth - 180;
+				double latEdge = random.nextInt(1 << precision) * cellHeight - 90;
+				for (double lat : new double[] { Math.nextDown(latEdge), latEdge, Math.nextUp(latEdge) }) {
+					for (double lon : new double[] { Math.nextDown(lonEdge), lonEdge, Math.nextUp(lonEdge) }) {
+						if (lat >= -90 && lon >= -180) {
+							points.add(new double[] { lat, lon });
+						}
+					}
+				}
+				points.add(new double[] { random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180 });
+			}
+
+			for (double[] point : points) {
+				Envelope cell = cache.cellEnvelope(cache.keyFor(point[0], point[1]));
+				assertThat(cell.contains(point[1], point[0]))
+						.as("precision %d, lat %s, lon %s in %s", precision, point[0], point[1], cell)
+						.isTrue();
+			}
+		}
+	}
+
+	@Test
+	void cornersOfTheWorldGetTheOutermostCells() {
+		LocationCache cache = cache(18);
+		long max = (1L << 18) - 1;
+
+		assertThat(cache.keyFor(-90, -180)).isZero();
+		assertThat(cache.keyFor(90, 180)).isEqualTo((max << 32) | max);
+		assertThat(cache.keyFor(-90, 180)).isEqualTo(max);
+		assertThat(cache.keyFor(90, -180)).isEqualTo(max << 32);
+	}
+
+	@Test
+	void remembersOnlyCellsInsideTheRegion() {
+		LocationCache cache = cache(18);
+		GeometryFactory geometryFactory = new GeometryFactory();
+		Polygon square = (Polygon) geometryFactory.toGeometry(new Envelope(10, 20, 40, 50));
+		AdminRegion region = new AdminRegion("XYZ",
+				geometryFactory.createMultiPolygon(new Polygon[] { square }), Map.of("country", "Xyzland"));
+
+		long inside = cache.keyFor(45, 15);
+		cache.offer(inside, region, 1);
+		assertThat(cache.get(inside, 1)).isSameAs(region);
+		assertThat(cache.get(inside, 2)).isNull();
+
+		// The cell holding the corner crosses the boundary
+		long corner = cache.keyFor(40, 10);
+		cache.offer(corner, region, 1);
+		assertThat(cache.get(corner, 1)).isNull();
+	}
+}
@@ -0,0 +1,193 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bigboi.geojson.models.CountryData;
+import com.bigboi.geojson.models.RegionResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LocationServiceTests {
+	private static final double METERS_PER_DEGREE = 111_195.0;
+
+	@TempDir
+	Path dir;
+
+	private LocationService service;
+
+	@AfterEach
+	void shutdown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	private void loadWithNearest() throws Exception {
+		// Two countries a fiftieth of a degree apart, and one far north
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		GadmFiles.write(dir, "BBB", 1, GadmFiles.rectangle("Bland", "Beta", 1.02, 0, 2, 1));
+		GadmFiles.write(dir, "CCC", 1, GadmFiles.rectangle("Cland", "Gamma", 10, 59, 11, 61));
+		service = GadmFiles.load(dir, properties -> {
+			properties.getNearest().setEnabled(true);
+			properties.getNearest().setMaxDistanceMeters(5_000);
+		});
+	}
+
+	private static double distance(RegionResult result) {
+		return (Double) result.getMap().get("distanceMeters");
+	}
+
+	@Test
+	void answersPointsInsideARegionWithoutADistance() throws Exception {
+		loadWithNearest();
+
+		RegionResult result = service.find(0.5, 0.5, -1);
+
+		assertThat(result.getCountryCode()).isEqualTo("AAA");
+		assertThat(result.getMap()).doesNotContainKey("distanceMeters");
+	}
+
+	@Test
+	void picksTheClosestRegionAcrossCountries() throws Exception {
+		loadWithNearest();
+
+		// A third of the way from Beta to Alpha
+		RegionResult result = service.find(0.5, 1.015, -1);
+
+		assertThat(result.getCountryCode()).isEqualTo("BBB");
+		assertThat(result.getProperties()).containsEntry("level_1", "Beta");
+		assertThat(distance(result)).isCloseTo(0.005 * METERS_PER_DEGREE * Math.cos(Math.toRadians(0.5)),
+				within(0.2));
+
+		assertThat(service.find(0.5, 1.005, -1).getCountryCode()).isEqualTo("AAA");
+	}
+
+	@Test
+	void ignoresRegionsBeyondTheMaximumDistance() throws Exception {
+		loadWithNearest();
+
+		RegionResult near = service.find(1.04, 1.5, -1);
+		assertThat(near.getCountryCode()).isEqualTo("BBB");
+		assertThat(distance(near)).isCloseTo(0.04 * METERS_PER_DEGREE, within(0.2));
+
+		// 0.1 degrees of latitude is about 11 km
+		assertThat(service.find(1.1, 1.5, -1)).isNull();
+		assertThat(service.find(-30, -30, -1)).isNull();
+	}
+
+	@Test
+	void scalesLongitudeByTheCosineOfTheLatitude() throws Exception {
+		loadWithNearest();
+
+		// At 60 degrees a degree of longitude is half as long as one of latitude
+		RegionResult east = service.find(60, 11.05, -1);
+		assertThat(east.getCountryCode()).isEqualTo("CCC");
+		assertThat(distance(east)).isCloseTo(0.05 * METERS_PER_DEGREE / 2, within(0.2));
+
+		// The same offset in latitude is past the 5 km limit
+		assertThat(service.find(61.05, 10.5, -1)).isNull();
+	}
+
+	@Test
+	void reusesTheCountriesOfUnchangedFilesOnReload() throws Exception {
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		Path touched = GadmFiles.write(dir, "BBB", 1, GadmFiles.rectangle("Bland", "Beta", 2, 0, 3, 1));
+		GadmFiles.write(dir, "CCC", 1, GadmFiles.rectangle("Cland", "Gamma", 4, 0, 5, 1));
+		service = GadmFiles.load(dir, properties -> {
+		});
+		Map<String, CountryData> before = service.getDataset().getCountries();
+
+		// Same bytes under a new mtime, and a rewrite of a different length
+		Files.setLastModifiedTime(touched, FileTime.fromMillis(Files.getLastModifiedTime(touched).toMillis() + 60_000));
+		GadmFiles.write(dir, "CCC", 1, GadmFiles.rectangle("Cland", "Gamma Renamed", 4, 0, 5, 1));
+		assertThat(service.reload()).isTrue();
+
+		Map<String, CountryData> after = service.getDataset().getCountries();
+		assertThat(after.get("AAA")).isSameAs(before.get("AAA"));
+		assertThat(after.get("BBB")).isSameAs(before.get("BBB"));
+		assertThat(after.get("CCC")).isNotSameAs(before.get("CCC"));
+		assertThat(service.find(0.5, 4.5, -1).getProperties()).containsEntry("level_1", "Gamma Renamed");
+		assertThat(service.find(0.5, 2.5, -1).getProperties()).containsEntry("level_1", "Beta");
+	}
+
+	@Test
+	void dropsTheCountriesOfDeletedFilesOnReload() throws Exception {
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		Path deleted = GadmFiles.write(dir, "BBB", 1, GadmFiles.rectangle("Bland", "Beta", 2, 0, 3, 1));
+		service = GadmFiles.load(dir, properties -> {
+		});
+		CountryData kept = service.getDataset().getCountries().get("AAA");
+		assertThat(service.find(0.5, 2.5, -1)).isNotNull();
+
+		Files.delete(deleted);
+		assertThat(service.reload()).isTrue();
+
+		assertThat(service.getDataset().getCountries()).containsOnlyKeys("AAA");
+		assertThat(service.getDataset().getCountries().get("AAA")).isSameAs(kept);
+		assertThat(service.find(0.5, 2.5, -1)).isNull();
+		assertThat(service.find(0.5, 0.5, -1)).isNotNull();
+	}
+
+	@Test
+	void addsTheOriginalPropertiesOnRequest() throws Exception {
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		service = GadmFiles.load(dir, properties -> properties.getNearest().setEnabled(true));
+
+		assertThat(service.find(0.5, 0.5, -1).getMap()).doesNotContainKey("originalProperties");
+		JsonNode inside = new ObjectMapper().readTree(service.findWithOriginalProperties(0.5, 0.5, -1).getJson());
+		assertThat(inside.path("properties").path("level_1").asText()).isEqualTo("Alpha");
+		assertThat(inside.path("originalProperties").path("GID_1").asText()).isEqualTo("Alpha.1");
+		assertThat(inside.path("originalProperties").path("NAME_1").asText()).isEqualTo("Alpha");
+
+		JsonNode near = new ObjectMapper().readTree(service.findWithOriginalProperties(0.5, 1.01, -1).getJson());
+		assertThat(near.path("distanceMeters").asDouble()).isPositive();
+		assertThat(near.path("originalProperties").path("GID_1").asText()).isEqualTo("Alpha.1");
+
+		assertThat(service.findWithOriginalProperties(30, 30, -1)).isNull();
+	}
+
+	@Test
+	void readsTheOriginalPropertiesFromTheSnapshot() throws Exception {
+		Path source = GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		service = GadmFiles.load(dir, properties -> {
+			properties.getSnapshot().setEnabled(true);
+			properties.getSnapshot().setDir(dir.resolve("snapshots").toString());
+		});
+
+		// Nothing left to read them from but the snapshot
+		Files.delete(source);
+
+		RegionResult result = service.findWithOriginalProperties(0.5, 0.5, -1);
+		assertThat(result.getMap().get("originalProperties")).isEqualTo(
+				Map.of("GID_1", "Alpha.1", "COUNTRY", "Aland", "NAME_1", "Alpha"));
+	}
+
+	@Test
+	void findsRegionsEntirelyAtNegativeCoordinates() throws Exception {
+		GadmFiles.write(dir, "SSS", 1, GadmFiles.rectangle("Southland", "Austral", -70, -40, -60, -30));
+		service = GadmFiles.load(dir, properties -> {
+		});
+
+		assertThat(service.find(-35, -65, -1).getProperties()).containsEntry("level_1", "Austral");
+		assertThat(service.find(-29, -65, -1)).isNull();
+	}
+
+	@Test
+	void leavesPointsOutsideEveryRegionUnansweredByDefault() throws Exception {
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "Alpha", 0, 0, 1, 1));
+		service = GadmFiles.load(dir, properties -> {
+		});
+
+		assertThat(service.find(0.5, 1.001, -1)).isNull();
+	}
+}
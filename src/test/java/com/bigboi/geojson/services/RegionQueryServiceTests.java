@@ -0,0 +1,182 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.models.RegionQuery;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RegionQueryServiceTests {
+	@TempDir
+	Path dir;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private LocationService locationService;
+	private RegionQueryService service;
+
+	@BeforeEach
+	void load() throws Exception {
+		GadmFiles.write(dir, "AAA", 1, GadmFiles.rectangle("Aland", "A0", 0, 0, 1, 1),
+				GadmFiles.rectangle("Aland", "A1", 1, 0, 2, 1), GadmFiles.rectangle("Aland", "A2", 2, 0, 3, 1),
+				GadmFiles.rectangle("Aland", "A3", 3, 0, 4, 1), GadmFiles.rectangle("Aland", "A4", 4, 0, 5, 1));
+		GadmFiles.write(dir, "BBB", 1, GadmFiles.rectangle("Bland", "Beta", 10, 0, 11, 1));
+		// Level 2 only: its level 1 regions are read off the districts
+		GadmFiles.write(dir, "CCC", 2, GadmFiles.district("Cland", "North", "N1", 20, 0, 21, 1),
+				GadmFiles.district("Cland", "North", "N2", 21, 0, 22, 1),
+				GadmFiles.district("Cland", "South", "S1", 22, 0, 23, 1));
+		LocationProperties properties = GadmFiles.properties(dir);
+		locationService = GadmFiles.load(properties);
+		service = new RegionQueryService(locationService, new GeometryFactory(), objectMapper, properties);
+	}
+
+	@AfterEach
+	void shutdown() {
+		locationService.shutdown();
+	}
+
+	private static RegionQuery bbox(double minLon, double minLat, double maxLon, double maxLat) {
+		RegionQuery query = new RegionQuery();
+		query.setBbox(new ArrayList<>(List.of(minLon, minLat, maxLon, maxLat)));
+		return query;
+	}
+
+	private JsonNode page(RegionQuery query) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.plan(query).writeFeatureCollection(out);
+		return objectMapper.readTree(out.toByteArray());
+	}
+
+	private static List<String> names(JsonNode page, String key) {
+		List<String> names = new ArrayList<>();
+		page.path("features").forEach(feature -> names.add(feature.path("properties").path(key).asText()));
+		return names;
+	}
+
+	@Test
+	void pagesThroughEveryMatchOnce() throws Exception {
+		RegionQuery query = bbox(-1, -1, 12, 2);
+		query.setLimit(2);
+		List<String> names = new ArrayList<>();
+
+		JsonNode page = page(query);
+		long generation = page.path("generation").asLong();
+		List<Integer> offsets = new ArrayList<>();
+		while (true) {
+			assertThat(page.path("generation").asLong()).isEqualTo(generation);
+			assertThat(page.path("features").size()).isEqualTo(2);
+			offsets.add(page.path("offset").asInt());
+			names.addAll(names(page, "level_1"));
+			if (page.path("next").isNull()) {
+				break;
+			}
+			query.setOffset(page.path("next").asInt());
+			query.setGeneration(generation);
+			page = page(query);
+		}
+
+		assertThat(offsets).containsExactly(0, 2, 4);
+		assertThat(names).containsExactlyInAnyOrder("A0", "A1", "A2", "A3", "A4", "Beta");
+	}
+
+	@Test
+	void refusesToContinueAcrossAReload() throws Exception {
+		RegionQuery query = bbox(-1, -1, 12, 2);
+		query.setLimit(2);
+		long generation = page(query).path("generation").asLong();
+
+		GadmFiles.write(dir, "BBB", 1, GadmFiles.rectangle("Bland", "Beta Renamed", 10, 0, 11, 1));
+		assertThat(locationService.reload()).isTrue();
+		query.setOffset(2);
+		query.setGeneration(generation);
+
+		assertThatThrownBy(() -> service.plan(query)).isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("start again from offset 0");
+		query.setOffset(0);
+		query.setGeneration(null);
+		assertThat(page(query).path("generation").asLong()).isGreaterThan(generation);
+	}
+
+	@Test
+	void mergesLevelsWithoutAnIndexOfTheirOwn() throws Exception {
+		RegionQuery query = bbox(19.5, 0.2, 23.5, 0.8);
+		query.setLevel(1);
+
+		JsonNode page = page(query);
+
+		assertThat(names(page, "level_1")).containsExactlyInAnyOrder("North", "South");
+		assertThat(page.path("features").get(0).path("properties").has("level_2")).isFalse();
+		assertThat(page.path("next").isNull()).isTrue();
+
+		// Finest level: one feature per district
+		assertThat(names(page(bbox(19.5, 0.2, 23.5, 0.8)), "level_2")).containsExactlyInAnyOrder("N1", "N2", "S1");
+	}
+
+	@Test
+	void refusesGeometryForMergedLevels() {
+		RegionQuery query = bbox(19.5, 0.2, 23.5, 0.8);
+		query.setLevel(1);
+		query.setGeometry(RegionQuery.GeometryOutput.FULL);
+
+		assertThatThrownBy(() -> service.plan(query)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("app.location.levels.indexed");
+	}
+
+	@Test
+	void matchesRegionsMeetingAPolygon() throws Exception {
+		RegionQuery query = new RegionQuery();
+		query.setArea(objectMapper.readTree("{\"type\":\"Polygon\",\"coordinates\":"
+				+ "[[[0.2,0.2],[1.5,0.2],[1.5,0.8],[0.2,0.8],[0.2,0.2]]]}"));
+		query.setGeometry(RegionQuery.GeometryOutput.CLIPPED);
+
+		JsonNode page = page(query);
+
+		assertThat(names(page, "level_1")).containsExactlyInAnyOrder("A0", "A1");
+		assertThat(page.path("features").get(0).path("geometry").path("type").asText()).isEqualTo("MultiPolygon");
+	}
+
+	@Test
+	void validatesTheBoxAndPaging() {
+		assertThatThrownBy(() -> service.plan(new RegionQuery())).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("either bbox or area");
+
+		RegionQuery three = new RegionQuery();
+		three.setBbox(new ArrayList<>(List.of(0.0, 0.0, 1.0)));
+		assertThatThrownBy(() -> service.plan(three)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("[minLongitude, minLatitude, maxLongitude, maxLatitude]");
+
+		assertThatThrownBy(() -> service.plan(bbox(170, 0, -170, 1))).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("antimeridian");
+
+		RegionQuery tooMany = bbox(0, 0, 1, 1);
+		tooMany.setLimit(1_001);
+		assertThatThrownBy(() -> service.plan(tooMany)).isInstanceOf(IllegalArgumentException.class);
+
+		RegionQuery negative = bbox(0, 0, 1, 1);
+		negative.setOffset(-1);
+		assertThatThrownBy(() -> service.plan(negative)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsSelfIntersectingAreas() throws Exception {
+		RegionQuery query = new RegionQuery();
+		// A bow tie
+		query.setArea(objectMapper.readTree("{\"type\":\"Polygon\",\"coordinates\":"
+				+ "[[[0,0],[1,1],[1,0],[0,1],[0,0]]]}"));
+
+		assertThatThrownBy(() -> service.plan(query)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("not a valid polygon");
+	}
+}
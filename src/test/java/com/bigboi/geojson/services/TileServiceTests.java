@@ -0,0 +1,108 @@
+package com.bigboi.geojson.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.bigboi.geojson.config.LocationProperties;
+import com.bigboi.geojson.events.GeoJsonReloadEvent;
+import com.bigboi.geojson.listeners.GeoJsonReloadListener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TileServiceTests {
+	@TempDir
+	Path dir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private Path data;
+	private Path spill;
+	private LocationService locationService;
+	private TileService tileService;
+
+	@BeforeEach
+	void load() throws Exception {
+		data = Files.createDirectories(dir.resolve("data"));
+		spill = dir.resolve("spill");
+		GadmFiles.write(data, "XYZ", 1, GadmFiles.rectangle("Xyzland", "Oldshire", -20, -10, 20, 10));
+		locationService = GadmFiles.load(properties());
+		tileService = new TileService(locationService, new GeometryFactory(), properties(), registry);
+	}
+
+	@AfterEach
+	void shutdown() {
+		tileService.shutdown();
+		locationService.shutdown();
+	}
+
+	private long generated() {
+		return registry.get("location.tiles.generate").timer().count();
+	}
+
+	@Test
+	void servesBuiltTilesFromTheCache() {
+		byte[] first = tileService.tile(1, 0, 0);
+		byte[] second = tileService.tile(1, 0, 0);
+
+		assertThat(second).isSameAs(first);
+		assertThat(generated()).isEqualTo(1);
+	}
+
+	@Test
+	void regeneratesTilesOnceTheReloadIsSwappedIn() throws Exception {
+		assertThat(names(tileService.tile(0, 0, 0))).contains("Oldshire");
+		assertThat(generated()).isEqualTo(1);
+
+		GadmFiles.write(data, "XYZ", 1, GadmFiles.rectangle("Xyzland", "Renamed County", -20, -10, 20, 10));
+		GeoJsonReloadEvent event = new GeoJsonReloadEvent(this);
+		new GeoJsonReloadListener(locationService, tileService).handleGeoJsonReload(event);
+		assertThat(event.getRebuild().join()).isTrue();
+
+		String tile = names(tileService.tile(0, 0, 0));
+		assertThat(tile).contains("Renamed County").doesNotContain("Oldshire");
+		assertThat(generated()).isEqualTo(2);
+	}
+
+	@Test
+	void clearsOnlyTheSpilledTileLayout() throws Exception {
+		Path own = Files.createDirectories(spill.resolve("mvt").resolve("1").resolve("0").resolve("0"));
+		Files.write(own.resolve("0.mvt"), new byte[] { 1 });
+		Path unrelated = Files.writeString(spill.resolve("notes.txt"), "keep", StandardCharsets.UTF_8);
+		Path stray = Files.writeString(spill.resolve("mvt").resolve("readme.txt"), "keep", StandardCharsets.UTF_8);
+
+		// Cleared at startup on the cleaner thread
+		TileService fresh = new TileService(locationService, new GeometryFactory(), properties(),
+				new SimpleMeterRegistry());
+		try {
+			for (int i = 0; i < 100 && Files.exists(own.resolve("0.mvt")); i++) {
+				Thread.sleep(20);
+			}
+		} finally {
+			fresh.shutdown();
+		}
+
+		assertThat(own.resolve("0.mvt")).doesNotExist();
+		assertThat(spill.resolve("mvt").resolve("1")).doesNotExist();
+		assertThat(unrelated).exists();
+		assertThat(stray).exists();
+	}
+
+	private LocationProperties properties() {
+		LocationProperties properties = GadmFiles.properties(data);
+		properties.getTiles().setSpillDir(spill.toString());
+		return properties;
+	}
+
+	// Property values are plain UTF-8 strings in the encoded tile
+	private static String names(byte[] tile) {
+		return new String(tile, StandardCharsets.ISO_8859_1);
+	}
+}